@@ -0,0 +1,28 @@
+package ru.vsu.cs.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Coalesces concurrent calls of a single-item method {@code V get(K key)} into calls of the {@link #bulkMethod()}
+ * of the same class, declared as {@code Map<K, V> getAll(Collection<K> keys)}. A batch is flushed when it holds
+ * {@link #maxBatchSize()} distinct keys or {@link #maxDelayMillis()} after its first key; callers of a key missing in
+ * the bulk result get {@code null}, and an exception of the bulk call is thrown to every caller of the batch.
+ * <p>
+ * The proxy is generated as {@code <Class>BatchedProxy} with one batcher per method and instance. A class that also
+ * uses {@code @StripedLock} or {@code @CrossSemaphore} keeps the name of their proxy, and one that also uses
+ * {@code @Memoized} or {@code @LocalLimiter} gets {@code <Class>GuardedProxy}. The method must not carry another
+ * guard annotation.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface Batched {
+
+    String bulkMethod();
+
+    int maxBatchSize() default 100;
+
+    long maxDelayMillis() default 5;
+}
@@ -0,0 +1,46 @@
+package ru.vsu.cs.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Additional settings for a method annotated with {@code @CrossSemaphore}.
+ * <p>
+ * Methods of one class that share a semaphore id must declare the same {@link #leaseSize()} and
+ * {@link #leaseTimeoutMillis()}; {@link #weight()} may differ per method.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface CrossSemaphoreOptions {
+
+    /**
+     * Permits consumed by one call of the method, from 1 to the semaphore permits. They are collected from the
+     * backend one at a time with timed acquires; a call that cannot complete its block returns the collected
+     * permits and retries after a random back-off.
+     * <p>
+     * The cross-sync DAO has no timed acquire, so a weight above 1 is rejected unless the processor option
+     * {@code -Aru.vsu.cs.crossSemaphore.timedAcquire=true} declares that the application installs a
+     * {@code ru.vsu.cs.runtime.CrossSemaphoreBackend} implementing it.
+     */
+    int weight() default 1;
+
+    /**
+     * Permits this JVM keeps after they are released instead of returning them to the cross-sync DAO,
+     * so that following calls take them with a local counter. {@code 0} disables leasing.
+     */
+    int leaseSize() default 0;
+
+    /**
+     * Age or idle time after which leased permits are returned to the cross-sync DAO.
+     */
+    long leaseTimeoutMillis() default 1000;
+
+    /**
+     * Records wait time, hold time, acquisitions and failed acquisitions of the method into
+     * {@code ru.vsu.cs.runtime.metrics.GuardMetricsRegistry}. Enabled for all methods by the processor option
+     * {@code -Aru.vsu.cs.instrumentation=true}.
+     */
+    boolean instrumented() default false;
+}
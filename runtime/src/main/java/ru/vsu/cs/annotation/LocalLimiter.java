@@ -0,0 +1,43 @@
+package ru.vsu.cs.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Limits calls of the method within this JVM, without the cross-sync DAO used by {@code @CrossSemaphore}.
+ * The limiter is a static field of the generated {@code <Class>LocalLimiterProxy}, so it is shared by all its instances.
+ * A class that also uses {@code @StripedLock} or {@code @CrossSemaphore} keeps the name of their proxy, and one that
+ * also uses {@code @Memoized} or {@code @Batched} gets {@code <Class>GuardedProxy}. The method must not carry another
+ * guard annotation.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface LocalLimiter {
+
+    LocalLimiterKind kind() default LocalLimiterKind.BULKHEAD;
+
+    /**
+     * Concurrent calls of a {@link LocalLimiterKind#BULKHEAD} or burst size of a {@link LocalLimiterKind#TOKEN_BUCKET}.
+     */
+    int permits();
+
+    /**
+     * Rate of a {@link LocalLimiterKind#TOKEN_BUCKET}, must not be set for a {@link LocalLimiterKind#BULKHEAD}.
+     */
+    long refillPerSecond() default 0;
+
+    LocalLimiterBehavior onLimit() default LocalLimiterBehavior.REJECT;
+
+    /**
+     * Longest wait for a permit with {@link LocalLimiterBehavior#WAIT}.
+     */
+    long timeoutMillis() default 0;
+
+    /**
+     * Name of a non-private method of the class with the same parameters, called with
+     * {@link LocalLimiterBehavior#FALLBACK}.
+     */
+    String fallback() default "";
+}
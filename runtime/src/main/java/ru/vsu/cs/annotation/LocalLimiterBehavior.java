@@ -0,0 +1,19 @@
+package ru.vsu.cs.annotation;
+
+public enum LocalLimiterBehavior {
+
+    /**
+     * Throws {@code ru.vsu.cs.runtime.limit.LimitExceededException} when no permit is available.
+     */
+    REJECT,
+
+    /**
+     * Waits up to {@code timeoutMillis} for a permit, then rejects.
+     */
+    WAIT,
+
+    /**
+     * Returns the result of the {@code fallback} method of the class when no permit is available.
+     */
+    FALLBACK
+}
@@ -0,0 +1,14 @@
+package ru.vsu.cs.annotation;
+
+public enum LocalLimiterKind {
+
+    /**
+     * At most {@code permits} calls start in a burst, after that {@code refillPerSecond} calls per second.
+     */
+    TOKEN_BUCKET,
+
+    /**
+     * At most {@code permits} calls run at the same time.
+     */
+    BULKHEAD
+}
@@ -0,0 +1,31 @@
+package ru.vsu.cs.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches results of the method per instance, keyed by its arguments ({@code equals}/{@code hashCode}, arrays are
+ * compared by content). Concurrent calls with the same arguments wait for a single {@code super} call, and an
+ * exception of that call is thrown to all of them without being cached.
+ * <p>
+ * The proxy is generated as {@code <Class>MemoizedProxy}; its {@code memoizingCaches()} exposes the caches with their
+ * hit and miss counters. A class that also uses {@code @StripedLock} or {@code @CrossSemaphore} keeps the name of
+ * their proxy, and one that also uses {@code @LocalLimiter} or {@code @Batched} gets {@code <Class>GuardedProxy}.
+ * The method must not carry another guard annotation.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface Memoized {
+
+    /**
+     * Maximum number of cached results, the oldest ones are evicted first.
+     */
+    int maxSize() default 1024;
+
+    /**
+     * Time after which a cached result is computed again. {@code 0} keeps results until they are evicted.
+     */
+    long ttlMillis() default 0;
+}
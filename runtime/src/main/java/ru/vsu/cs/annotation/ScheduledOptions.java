@@ -0,0 +1,33 @@
+package ru.vsu.cs.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Additional settings for a method annotated with {@code @Scheduled}.
+ * <p>
+ * In timing wheel mode the generated class implements {@code ru.vsu.cs.runtime.schedule.WheelSchedulable} instead
+ * of {@code Schedulable}, and the task is run by {@code ru.vsu.cs.runtime.schedule.TimingWheelScheduler}, which
+ * serves many tasks from one wheel thread and a few workers. Intervals down to the wheel tick are allowed,
+ * {@code PUT_TO_QUEUE} keeps its {@code queueSize} and other strategies skip runs overlapping a running one.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface ScheduledOptions {
+
+    boolean timingWheel() default false;
+
+    /**
+     * Cron expression of {@code ru.vsu.cs.runtime.schedule.CronExpression} replacing the interval, timing wheel
+     * mode only.
+     */
+    String cron() default "";
+
+    /**
+     * Upper bound of a random delay of the first run (of every run with {@link #cron()}), so that tasks with
+     * the same schedule do not fire in the same millisecond. Timing wheel mode only.
+     */
+    long jitterMillis() default 0;
+}
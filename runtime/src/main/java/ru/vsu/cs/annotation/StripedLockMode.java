@@ -0,0 +1,29 @@
+package ru.vsu.cs.annotation;
+
+/**
+ * Lock taken by a {@code @StripedLock} proxy around the method call.
+ * <p>
+ * {@link #READ}, {@link #WRITE} and {@link #OPTIMISTIC_READ} lock striped reentrant read-write locks, so a method may
+ * call other proxied methods of its class even when their keys share a stripe. The only exception is a write lock
+ * requested while the thread holds just the read lock of the stripe: it cannot be upgraded and fails with
+ * {@link IllegalStateException}, so {@link #READ} methods must not call {@link #WRITE} methods of the same locker.
+ */
+public enum StripedLockMode {
+    /**
+     * Exclusive reentrant lock of {@code DefaultLocker}.
+     */
+    EXCLUSIVE,
+    /**
+     * Shared read lock of a stripe.
+     */
+    READ,
+    /**
+     * Exclusive write lock of a stripe.
+     */
+    WRITE,
+    /**
+     * Optimistic read of a stripe: the method runs without locking and runs again under the read lock if a writer
+     * interfered, so it must be free of side effects.
+     */
+    OPTIMISTIC_READ
+}
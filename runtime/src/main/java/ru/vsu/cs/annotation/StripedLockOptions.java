@@ -0,0 +1,53 @@
+package ru.vsu.cs.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Additional settings for a method annotated with {@code @StripedLock}.
+ * <p>
+ * {@link StripedLockMode#READ}, {@link StripedLockMode#WRITE} and {@link StripedLockMode#OPTIMISTIC_READ} share
+ * striped read-write locks, which do not exclude {@link StripedLockMode#EXCLUSIVE}, so one key of a class must not be
+ * used with both groups of modes.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.METHOD)
+public @interface StripedLockOptions {
+
+    StripedLockMode mode() default StripedLockMode.EXCLUSIVE;
+
+    /**
+     * Expressions of further keys locked together with {@code lockIdentifier}. A key that evaluates to a
+     * {@link java.util.Collection} contributes all its elements. The keys are mapped to read-write lock stripes, which are
+     * locked in ascending order and unlocked in reverse, so multi-key methods cannot deadlock each other.
+     * {@link StripedLockMode#EXCLUSIVE} takes write locks in this case. A {@code lockIdentifier} of a
+     * {@link java.util.Collection} type is expanded the same way, without further keys; its type is resolved for a
+     * parameter, field or no-argument method followed by fields and no-argument methods, e.g. {@code order.getIds()},
+     * other expressions are locked as one key with a warning.
+     */
+    String[] keys() default {};
+
+    /**
+     * Records wait time, hold time, acquisitions and failed acquisitions of the method into
+     * {@code ru.vsu.cs.runtime.metrics.GuardMetricsRegistry}. Enabled for all methods by the processor option
+     * {@code -Aru.vsu.cs.instrumentation=true}.
+     */
+    boolean instrumented() default false;
+
+    /**
+     * Name of a lock pool of the class: a static {@code StripedReadWriteLocker} of the proxy, so the methods of the
+     * pool do not contend with other classes on stripes of the shared lockers. In a pool
+     * {@link StripedLockMode#EXCLUSIVE} takes write locks, which are reentrant like the exclusive lock of
+     * {@code DefaultLocker} but cannot be taken inside a {@link StripedLockMode#READ} method of the same pool. Not
+     * supported for async methods.
+     */
+    String pool() default "";
+
+    /**
+     * Stripes of the {@link #pool()}, rounded up to a power of two; {@code 0} means
+     * {@code StripedReadWriteLocker.DEFAULT_STRIPES}. Methods of one pool must not declare different stripe counts.
+     */
+    int stripes() default 0;
+}
@@ -0,0 +1,104 @@
+package ru.vsu.cs.runtime;
+
+import ru.vsu.cs.runtime.metrics.GuardMetrics;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Support code for proxies of methods returning {@link CompletableFuture} or {@link CompletionStage}:
+ * the guard is taken without parking the calling thread and is released when the returned stage completes.
+ */
+public final class AsyncGuards {
+
+    private static final ExecutorService BLOCKING_EXECUTOR = Executors.newCachedThreadPool(new Factory());
+
+    private AsyncGuards() {
+    }
+
+    /**
+     * Executor for blocking calls (e.g. cross-node DAO round trips) that must not run on the caller thread.
+     */
+    public static Executor blockingExecutor() {
+        return BLOCKING_EXECUTOR;
+    }
+
+    /**
+     * Runs {@code call} once {@code acquired} completes and runs {@code release} exactly once when the stage
+     * returned by {@code call} completes. If acquisition fails, {@code call} and {@code release} are not run.
+     */
+    public static <T> CompletableFuture<T> guard(CompletionStage<?> acquired,
+                                                 Supplier<? extends CompletionStage<? extends T>> call,
+                                                 Runnable release) {
+        return guard(acquired, call, release, null, 0L);
+    }
+
+    /**
+     * Same as {@link #guard(CompletionStage, Supplier, Runnable)}, additionally recording the wait since
+     * {@code waitStartNanos} and the hold time into {@code metrics} unless it is {@code null}.
+     */
+    public static <T> CompletableFuture<T> guard(CompletionStage<?> acquired,
+                                                 Supplier<? extends CompletionStage<? extends T>> call,
+                                                 Runnable release,
+                                                 GuardMetrics metrics,
+                                                 long waitStartNanos) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        acquired.whenComplete((ignored, acquireError) -> {
+            if (acquireError != null) {
+                if (metrics != null) {
+                    metrics.failed(waitStartNanos, acquireError);
+                }
+                result.completeExceptionally(acquireError);
+                return;
+            }
+            long holdStartNanos = metrics == null ? 0L : metrics.acquired(waitStartNanos);
+            CompletionStage<? extends T> stage;
+            try {
+                stage = Objects.requireNonNull(call.get(), "Proxied async method returned null");
+            } catch (Throwable e) {
+                releaseAndComplete(result, release, metrics, holdStartNanos, null, e);
+                return;
+            }
+            stage.whenComplete((value, error) -> releaseAndComplete(result, release, metrics, holdStartNanos, value, error));
+        });
+        return result;
+    }
+
+    private static <T> void releaseAndComplete(CompletableFuture<T> result, Runnable release, GuardMetrics metrics,
+                                               long holdStartNanos, T value, Throwable error) {
+        if (metrics != null) {
+            metrics.released(holdStartNanos);
+        }
+        try {
+            release.run();
+        } catch (Throwable e) {
+            if (error == null) {
+                error = e;
+            } else {
+                error.addSuppressed(e);
+            }
+        }
+        if (error != null) {
+            result.completeExceptionally(error);
+        } else {
+            result.complete(value);
+        }
+    }
+
+    private static final class Factory implements java.util.concurrent.ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "async-guard-blocking-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package ru.vsu.cs.runtime;
+
+import ru.vsu.cs.runtime.metrics.GuardMetrics;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Per-key mutual exclusion for async proxies. Waiters are queued futures instead of parked threads,
+ * and ownership is not bound to a thread, so the lock can be released by whichever thread completes the call.
+ */
+public final class AsyncKeyedMutex {
+
+    private static final AsyncKeyedMutex INSTANCE = new AsyncKeyedMutex();
+
+    private final ConcurrentHashMap<Object, ArrayDeque<CompletableFuture<Void>>> waiters = new ConcurrentHashMap<>();
+
+    public static AsyncKeyedMutex getInstance() {
+        return INSTANCE;
+    }
+
+    public <T> CompletableFuture<T> withLock(Object key, Supplier<? extends CompletionStage<? extends T>> call) {
+        return withLock(key, null, call);
+    }
+
+    public <T> CompletableFuture<T> withLock(Object key, GuardMetrics metrics, Supplier<? extends CompletionStage<? extends T>> call) {
+        Objects.requireNonNull(key, "Lock identifier must not be null");
+        long waitStartNanos = metrics == null ? 0L : System.nanoTime();
+        return AsyncGuards.guard(acquire(key), call, () -> release(key), metrics, waitStartNanos);
+    }
+
+    public CompletableFuture<Void> acquire(Object key) {
+        CompletableFuture<Void> ticket = new CompletableFuture<>();
+        waiters.compute(key, (k, queue) -> {
+            if (queue == null) {
+                ticket.complete(null);
+                return new ArrayDeque<>();
+            }
+            queue.addLast(ticket);
+            return queue;
+        });
+        return ticket;
+    }
+
+    public void release(Object key) {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        CompletableFuture<Void>[] next = new CompletableFuture[1];
+        waiters.computeIfPresent(key, (k, queue) -> {
+            next[0] = queue.pollFirst();
+            return next[0] == null ? null : queue;
+        });
+        if (next[0] != null) {
+            CompletableFuture<Void> ticket = next[0];
+            // hand off on another thread so a long queue of synchronously completing calls does not grow the stack
+            ForkJoinPool.commonPool().execute(() -> ticket.complete(null));
+        }
+    }
+}
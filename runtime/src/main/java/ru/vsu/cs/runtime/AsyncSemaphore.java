@@ -0,0 +1,104 @@
+package ru.vsu.cs.runtime;
+
+import ru.vsu.cs.runtime.metrics.GuardMetrics;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * Local non-blocking permit gate in front of a cross-node semaphore. At most {@code permits} calls of this JVM
+ * wait in the blocking DAO at the same time, the rest are queued as futures in arrival order.
+ */
+public final class AsyncSemaphore {
+
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private final int permits;
+    private int available;
+
+    public AsyncSemaphore(int permits) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("Permits must be more than 0");
+        }
+        this.permits = permits;
+        this.available = permits;
+    }
+
+    public <T> CompletableFuture<T> withPermit(int weight, Runnable remoteAcquire, Runnable remoteRelease,
+                                               Supplier<? extends CompletionStage<? extends T>> call) {
+        return withPermit(weight, remoteAcquire, remoteRelease, null, call);
+    }
+
+    public <T> CompletableFuture<T> withPermit(int weight, Runnable remoteAcquire, Runnable remoteRelease, GuardMetrics metrics,
+                                               Supplier<? extends CompletionStage<? extends T>> call) {
+        long waitStartNanos = metrics == null ? 0L : System.nanoTime();
+        return AsyncGuards.guard(acquireThen(weight, remoteAcquire), call, () -> releaseAfter(weight, remoteRelease), metrics, waitStartNanos);
+    }
+
+    public CompletableFuture<Void> acquire(int weight) {
+        if (weight < 1 || weight > permits) {
+            throw new IllegalArgumentException("Weight must be between 1 and " + permits);
+        }
+        CompletableFuture<Void> ticket = new CompletableFuture<>();
+        synchronized (this) {
+            if (waiters.isEmpty() && available >= weight) {
+                available -= weight;
+                ticket.complete(null);
+            } else {
+                waiters.addLast(new Waiter(ticket, weight));
+            }
+        }
+        return ticket;
+    }
+
+    public void release(int weight) {
+        ArrayDeque<CompletableFuture<Void>> granted = new ArrayDeque<>();
+        synchronized (this) {
+            available += weight;
+            while (!waiters.isEmpty() && waiters.peekFirst().weight <= available) {
+                Waiter next = waiters.pollFirst();
+                available -= next.weight;
+                granted.add(next.ticket);
+            }
+        }
+        for (CompletableFuture<Void> ticket : granted) {
+            ForkJoinPool.commonPool().execute(() -> ticket.complete(null));
+        }
+    }
+
+    private CompletableFuture<Void> acquireThen(int weight, Runnable remoteAcquire) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        acquire(weight).thenRunAsync(remoteAcquire, AsyncGuards.blockingExecutor())
+                .whenComplete((ignored, error) -> {
+                    if (error != null) {
+                        release(weight);
+                        result.completeExceptionally(error);
+                    } else {
+                        result.complete(null);
+                    }
+                });
+        return result;
+    }
+
+    private void releaseAfter(int weight, Runnable remoteRelease) {
+        AsyncGuards.blockingExecutor().execute(() -> {
+            try {
+                remoteRelease.run();
+            } finally {
+                release(weight);
+            }
+        });
+    }
+
+    private static final class Waiter {
+        private final CompletableFuture<Void> ticket;
+        private final int weight;
+
+        private Waiter(CompletableFuture<Void> ticket, int weight) {
+            this.ticket = ticket;
+            this.weight = weight;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.vsu.cs.runtime;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Store of cross-node semaphores used by {@code @CrossSemaphore} proxies, see {@link CrossSemaphoreBackends}.
+ */
+public interface CrossSemaphoreBackend {
+
+    void createIfNotExists(UUID id, int permits);
+
+    void acquire(UUID id);
+
+    void release(UUID id);
+
+    /**
+     * Waits at most {@code timeout} for a permit and leaves no pending request in the store when it gives up. Used by
+     * weighted {@code @CrossSemaphoreOptions}; a store without a timed acquire throws
+     * {@link UnsupportedOperationException}.
+     */
+    boolean tryAcquire(UUID id, long timeout, TimeUnit unit) throws InterruptedException;
+}
@@ -0,0 +1,56 @@
+package ru.vsu.cs.runtime;
+
+import ru.cs.vsu.multithreading.core.crosssync.CrossSyncSemaphore;
+import ru.cs.vsu.multithreading.core.crosssync.CrossSyncSemaphoreUtils;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the backend of {@code @CrossSemaphore} proxies. By default it is the DAO returned by
+ * {@link CrossSyncSemaphoreUtils#getDefaultDaoInstance()}; tests and benchmarks may install another one,
+ * e.g. {@link InMemoryCrossSemaphoreBackend}, before the first proxied call.
+ * <p>
+ * The DAO only has a blocking acquire, so weighted {@code @CrossSemaphoreOptions} are rejected by the processor
+ * unless the application declares with {@code -Aru.vsu.cs.crossSemaphore.timedAcquire=true} that it installs a
+ * backend implementing {@link CrossSemaphoreBackend#tryAcquire}.
+ */
+public final class CrossSemaphoreBackends {
+
+    private static volatile CrossSemaphoreBackend backend = new DaoBackend();
+
+    private CrossSemaphoreBackends() {
+    }
+
+    public static CrossSemaphoreBackend get() {
+        return backend;
+    }
+
+    public static void set(CrossSemaphoreBackend backend) {
+        CrossSemaphoreBackends.backend = Objects.requireNonNull(backend, "Backend must not be null");
+    }
+
+    private static final class DaoBackend implements CrossSemaphoreBackend {
+
+        @Override
+        public void createIfNotExists(UUID id, int permits) {
+            CrossSyncSemaphoreUtils.getDefaultDaoInstance().createIfNotExists(CrossSyncSemaphore.newInstance(id, permits, permits));
+        }
+
+        @Override
+        public void acquire(UUID id) {
+            CrossSyncSemaphoreUtils.getDefaultDaoInstance().acquire(id);
+        }
+
+        @Override
+        public boolean tryAcquire(UUID id, long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException("Cross-sync DAO has no timed acquire, install a backend that supports it for weighted semaphore " + id);
+        }
+
+        @Override
+        public void release(UUID id) {
+            CrossSyncSemaphoreUtils.getDefaultDaoInstance().release(id);
+        }
+    }
+}
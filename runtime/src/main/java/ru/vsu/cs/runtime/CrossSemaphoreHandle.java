@@ -0,0 +1,58 @@
+package ru.vsu.cs.runtime;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cached handle of one cross-node semaphore held by a {@code @CrossSemaphore} proxy. The semaphore is registered in
+ * the backend on the first acquire rather than in a static initializer: a failed registration is rethrown to the
+ * caller and retried by the next call, and a backend installed later registers the semaphore again.
+ */
+public final class CrossSemaphoreHandle {
+
+    private final UUID id;
+    private final int permits;
+    private final Supplier<CrossSemaphoreBackend> backends;
+    private volatile CrossSemaphoreBackend registeredIn;
+
+    public CrossSemaphoreHandle(UUID id, int permits) {
+        this(id, permits, CrossSemaphoreBackends::get);
+    }
+
+    public CrossSemaphoreHandle(UUID id, int permits, Supplier<CrossSemaphoreBackend> backends) {
+        this.id = Objects.requireNonNull(id, "Id must not be null");
+        this.permits = permits;
+        this.backends = backends;
+    }
+
+    public UUID id() {
+        return id;
+    }
+
+    public void acquire() {
+        registered().acquire(id);
+    }
+
+    public boolean tryAcquire(long timeout, TimeUnit unit) throws InterruptedException {
+        return registered().tryAcquire(id, timeout, unit);
+    }
+
+    public void release() {
+        backends.get().release(id);
+    }
+
+    private CrossSemaphoreBackend registered() {
+        CrossSemaphoreBackend backend = backends.get();
+        if (registeredIn != backend) {
+            synchronized (this) {
+                if (registeredIn != backend) {
+                    backend.createIfNotExists(id, permits);
+                    registeredIn = backend;
+                }
+            }
+        }
+        return backend;
+    }
+}
@@ -0,0 +1,42 @@
+package ru.vsu.cs.runtime;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-JVM stand-in for the cross-sync DAO, for tests and benchmarks.
+ */
+public final class InMemoryCrossSemaphoreBackend implements CrossSemaphoreBackend {
+
+    private final ConcurrentHashMap<UUID, Semaphore> semaphores = new ConcurrentHashMap<>();
+
+    @Override
+    public void createIfNotExists(UUID id, int permits) {
+        semaphores.computeIfAbsent(id, it -> new Semaphore(permits));
+    }
+
+    @Override
+    public void acquire(UUID id) {
+        semaphoreOf(id).acquireUninterruptibly();
+    }
+
+    @Override
+    public boolean tryAcquire(UUID id, long timeout, TimeUnit unit) throws InterruptedException {
+        return semaphoreOf(id).tryAcquire(timeout, unit);
+    }
+
+    @Override
+    public void release(UUID id) {
+        semaphoreOf(id).release();
+    }
+
+    private Semaphore semaphoreOf(UUID id) {
+        Semaphore semaphore = semaphores.get(id);
+        if (semaphore == null) {
+            throw new IllegalStateException("Semaphore " + id + " does not exist");
+        }
+        return semaphore;
+    }
+}
@@ -0,0 +1,189 @@
+package ru.vsu.cs.runtime;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of {@code @Memoized} proxies with single-flight loading.
+ * <p>
+ * Each key maps to a {@link Flight}: the first caller that {@link Flight#lead() leads} it computes the value, the
+ * others {@link Flight#await() wait} for it. Failed flights are removed so the next call computes again. Eviction is
+ * in insertion order, which keeps hits free of any bookkeeping besides the hit counter.
+ * <p>
+ * Failed and replaced expired flights stay in the insertion order queue until they are polled, so eviction skips them
+ * and starts only when the map holds more than {@code maxSize} entries. Once the queue is twice as long as the cache
+ * may be, it is purged of such flights and of the expired ones.
+ */
+public final class MemoizingCache<V> {
+
+    private static final Key NO_ARGS = new Key(new Object[0]);
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<Key, Flight<V>> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Flight<V>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean purging = new AtomicBoolean();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public MemoizingCache(int maxSize, long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    public static Object key(Object... args) {
+        return args.length == 0 ? NO_ARGS : new Key(args);
+    }
+
+    public Flight<V> flight(Object key) {
+        Key cacheKey = (Key) key;
+        while (true) {
+            Flight<V> current = entries.get(cacheKey);
+            if (current != null && !current.isExpired()) {
+                return current;
+            }
+            Flight<V> created = new Flight<>(this, cacheKey);
+            if (current == null ? entries.putIfAbsent(cacheKey, created) == null : entries.replace(cacheKey, current, created)) {
+                enqueue(created);
+                return created;
+            }
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+        insertionOrder.clear();
+        queued.set(0);
+    }
+
+    private void enqueue(Flight<V> flight) {
+        insertionOrder.add(flight);
+        queued.incrementAndGet();
+        while (entries.size() > maxSize) {
+            Flight<V> eldest = insertionOrder.poll();
+            if (eldest == null) {
+                break;
+            }
+            queued.decrementAndGet();
+            entries.remove(eldest.key, eldest);
+        }
+        if (queued.get() - maxSize > maxSize && purging.compareAndSet(false, true)) {
+            try {
+                purge();
+            } finally {
+                purging.set(false);
+            }
+        }
+    }
+
+    /**
+     * Drops the flights that are no longer in the map from the queue and removes the expired ones from both.
+     */
+    private void purge() {
+        for (Iterator<Flight<V>> iterator = insertionOrder.iterator(); iterator.hasNext(); ) {
+            Flight<V> flight = iterator.next();
+            if (entries.get(flight.key) != flight || flight.isExpired() && entries.remove(flight.key, flight)) {
+                iterator.remove();
+                queued.decrementAndGet();
+            }
+        }
+    }
+
+    public static final class Flight<V> {
+
+        private final MemoizingCache<V> cache;
+        private final Key key;
+        private final AtomicBoolean led = new AtomicBoolean();
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private volatile long expiresAtNanos;
+
+        private Flight(MemoizingCache<V> cache, Key key) {
+            this.cache = cache;
+            this.key = key;
+        }
+
+        /**
+         * Returns {@code true} for exactly one caller, which must then {@link #complete} or {@link #fail} the flight.
+         */
+        public boolean lead() {
+            if (!led.get() && led.compareAndSet(false, true)) {
+                cache.misses.increment();
+                return true;
+            }
+            cache.hits.increment();
+            return false;
+        }
+
+        public void complete(V value) {
+            expiresAtNanos = System.nanoTime() + cache.ttlNanos;
+            result.complete(value);
+        }
+
+        public void fail(Throwable error) {
+            cache.entries.remove(key, this);
+            result.completeExceptionally(error);
+        }
+
+        /**
+         * Waits for the leader and returns its value or throws its exception as is.
+         */
+        public V await() {
+            try {
+                return result.join();
+            } catch (CompletionException e) {
+                throw MemoizingCache.<RuntimeException>sneakyThrow(e.getCause());
+            }
+        }
+
+        private boolean isExpired() {
+            return cache.ttlNanos > 0 && result.isDone() && System.nanoTime() - expiresAtNanos >= 0;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> E sneakyThrow(Throwable error) throws E {
+        throw (E) error;
+    }
+
+    private static final class Key {
+
+        private final Object[] args;
+        private final int hash;
+
+        private Key(Object[] args) {
+            this.args = args;
+            this.hash = Arrays.deepHashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Key && hash == ((Key) o).hash && Arrays.deepEquals(args, ((Key) o).args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
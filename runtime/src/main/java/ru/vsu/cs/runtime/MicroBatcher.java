@@ -0,0 +1,104 @@
+package ru.vsu.cs.runtime;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batcher of {@code @Batched} proxies. Keys of concurrent calls are collected into one batch, duplicates share
+ * a result; a full batch is loaded by the caller that filled it, a batch that reached its delay is loaded
+ * on {@link AsyncGuards#blockingExecutor()}.
+ */
+public final class MicroBatcher<K, V> {
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "micro-batcher-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int maxBatchSize;
+    private final long maxDelayMillis;
+    private final BulkLoader<K, V> loader;
+    private final Object lock = new Object();
+    private Map<K, CompletableFuture<V>> batch = new LinkedHashMap<>();
+    private ScheduledFuture<?> flushTimer;
+
+    public MicroBatcher(int maxBatchSize, long maxDelayMillis, BulkLoader<K, V> loader) {
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMillis = maxDelayMillis;
+        this.loader = loader;
+    }
+
+    /**
+     * Waits for the batch of {@code key} and returns its value, or throws the exception of the bulk call as is.
+     */
+    public V load(K key) {
+        CompletableFuture<V> result;
+        Map<K, CompletableFuture<V>> full = null;
+        synchronized (lock) {
+            result = batch.computeIfAbsent(key, k -> new CompletableFuture<>());
+            if (batch.size() >= maxBatchSize) {
+                full = takeBatch();
+            } else if (flushTimer == null) {
+                flushTimer = TIMER.schedule(this::flushDelayed, maxDelayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+        if (full != null) {
+            flush(full);
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw MicroBatcher.<RuntimeException>sneakyThrow(e.getCause());
+        }
+    }
+
+    private Map<K, CompletableFuture<V>> takeBatch() {
+        Map<K, CompletableFuture<V>> taken = batch;
+        batch = new LinkedHashMap<>();
+        if (flushTimer != null) {
+            flushTimer.cancel(false);
+            flushTimer = null;
+        }
+        return taken;
+    }
+
+    private void flushDelayed() {
+        Map<K, CompletableFuture<V>> due;
+        synchronized (lock) {
+            if (batch.isEmpty()) {
+                return;
+            }
+            due = takeBatch();
+        }
+        AsyncGuards.blockingExecutor().execute(() -> flush(due));
+    }
+
+    private void flush(Map<K, CompletableFuture<V>> keys2Results) {
+        try {
+            Map<K, V> values = loader.load(new ArrayList<>(keys2Results.keySet()));
+            keys2Results.forEach((key, result) -> result.complete(values.get(key)));
+        } catch (Throwable e) {
+            keys2Results.values().forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Throwable> E sneakyThrow(Throwable error) throws E {
+        throw (E) error;
+    }
+
+    @FunctionalInterface
+    public interface BulkLoader<K, V> {
+
+        Map<K, V> load(List<K> keys) throws Exception;
+    }
+}
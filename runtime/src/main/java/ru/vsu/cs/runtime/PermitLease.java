@@ -0,0 +1,195 @@
+package ru.vsu.cs.runtime;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Weighted and leased access to a cross-node semaphore.
+ * <p>
+ * Permits taken from the backend stay with this JVM: released ones are put into a lock-free local counter and reused
+ * by following calls. Permits above {@code leaseSize} are returned on release, the rest are returned once the lease
+ * is {@code leaseTimeoutMillis} old or idle, so a busy node does not keep them from other nodes. While a caller of
+ * this JVM waits in the backend, released permits are returned instead of kept, since that caller cannot see the
+ * local counter.
+ * <p>
+ * The backend only acquires single permits. A weighted caller collects its permits with timed acquires, one caller
+ * of this JVM at a time; when an acquire times out it returns the collected permits and backs off, so nodes holding
+ * parts of one block cannot deadlock each other.
+ */
+public final class PermitLease {
+
+    private static final long WEIGHTED_ATTEMPT_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long MAX_BACKOFF_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long NOT_LEASED = Long.MIN_VALUE;
+    private static final ScheduledExecutorService EXPIRATION = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "permit-lease-expiration");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final CrossSemaphoreHandle semaphore;
+    private final int leaseSize;
+    private final long leaseTimeoutNanos;
+    private final AtomicInteger available = new AtomicInteger();
+    private final AtomicInteger remoteWaiters = new AtomicInteger();
+    private final AtomicLong leasedSinceNanos = new AtomicLong(NOT_LEASED);
+    private final ReentrantLock weightedLock = new ReentrantLock();
+    private volatile long lastUsedNanos = System.nanoTime();
+
+    public PermitLease(CrossSemaphoreHandle semaphore, int leaseSize, long leaseTimeoutMillis) {
+        this.semaphore = semaphore;
+        this.leaseSize = leaseSize;
+        this.leaseTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(leaseTimeoutMillis);
+        if (leaseSize > 0) {
+            long period = Math.max(1L, leaseTimeoutMillis / 2);
+            EXPIRATION.scheduleWithFixedDelay(this::expire, period, period, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void acquire(int weight) {
+        if (!tryTakeLocal(weight)) {
+            if (weight == 1) {
+                acquireRemote();
+            } else {
+                acquireWeighted(weight);
+            }
+        }
+        lastUsedNanos = System.nanoTime();
+    }
+
+    public void release(int weight) {
+        int current = available.addAndGet(weight);
+        if (remoteWaiters.get() > 0) {
+            returnRemote(available.getAndSet(0));
+            return;
+        }
+        while (current > leaseSize) {
+            if (available.compareAndSet(current, leaseSize)) {
+                returnRemote(current - leaseSize);
+                break;
+            }
+            current = available.get();
+        }
+        if (current > 0) {
+            leasedSinceNanos.compareAndSet(NOT_LEASED, System.nanoTime());
+        }
+    }
+
+    /**
+     * Registers as a waiter before the last look at the local counter: a release either puts its permit where this
+     * look finds it or sees the waiter and returns the permit to the backend.
+     */
+    private void acquireRemote() {
+        remoteWaiters.incrementAndGet();
+        try {
+            if (!tryTakeLocal(1)) {
+                semaphore.acquire();
+            }
+        } finally {
+            remoteWaiters.decrementAndGet();
+        }
+    }
+
+    private void acquireWeighted(int weight) {
+        boolean interrupted = false;
+        try {
+            while (!weightedLock.tryLock(WEIGHTED_ATTEMPT_NANOS, TimeUnit.NANOSECONDS)) {
+                if (tryTakeLocal(weight)) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+            weightedLock.lock();
+        }
+        remoteWaiters.incrementAndGet();
+        try {
+            long backoffNanos = WEIGHTED_ATTEMPT_NANOS;
+            while (true) {
+                int collected = 0;
+                try {
+                    while (collected < weight) {
+                        collected += takeLocalUpTo(weight - collected);
+                        if (collected < weight) {
+                            if (!semaphore.tryAcquire(WEIGHTED_ATTEMPT_NANOS, TimeUnit.NANOSECONDS)) {
+                                break;
+                            }
+                            collected++;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (RuntimeException | Error e) {
+                    returnRemote(collected);
+                    throw e;
+                }
+                if (collected == weight) {
+                    return;
+                }
+                returnRemote(collected);
+                LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(backoffNanos));
+                backoffNanos = Math.min(backoffNanos * 2, MAX_BACKOFF_NANOS);
+            }
+        } finally {
+            remoteWaiters.decrementAndGet();
+            weightedLock.unlock();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean tryTakeLocal(int weight) {
+        int current = available.get();
+        while (current >= weight) {
+            if (available.compareAndSet(current, current - weight)) {
+                return true;
+            }
+            current = available.get();
+        }
+        return false;
+    }
+
+    private int takeLocalUpTo(int permits) {
+        int current = available.get();
+        while (current > 0) {
+            int taken = Math.min(current, permits);
+            if (available.compareAndSet(current, current - taken)) {
+                return taken;
+            }
+            current = available.get();
+        }
+        return 0;
+    }
+
+    private void expire() {
+        try {
+            long now = System.nanoTime();
+            long leasedSince = leasedSinceNanos.get();
+            if (leasedSince != NOT_LEASED && (now - leasedSince >= leaseTimeoutNanos || now - lastUsedNanos >= leaseTimeoutNanos)) {
+                leasedSinceNanos.set(NOT_LEASED);
+                returnRemote(available.getAndSet(0));
+            }
+        } catch (RuntimeException e) {
+            // keep the expiration task scheduled, the permits are retried on the next run
+        }
+    }
+
+    private void returnRemote(int permits) {
+        for (int i = 0; i < permits; i++) {
+            try {
+                semaphore.release();
+            } catch (RuntimeException | Error e) {
+                available.addAndGet(permits - i);
+                leasedSinceNanos.compareAndSet(NOT_LEASED, System.nanoTime());
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package ru.vsu.cs.runtime;
+
+import ru.cs.vsu.multithreading.core.schedule.Schedulable;
+import ru.cs.vsu.multithreading.core.schedule.task.ScheduleTask;
+import ru.vsu.cs.runtime.schedule.WheelSchedulable;
+import ru.vsu.cs.runtime.schedule.WheelTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+
+/**
+ * Loads the tasks of all {@code @Scheduled} methods from the {@link Schedulable} and {@link WheelSchedulable} services
+ * registered at compile time.
+ */
+public final class ScheduledTasks {
+
+    private ScheduledTasks() {
+    }
+
+    public static List<ScheduleTask> load() {
+        return load(Thread.currentThread().getContextClassLoader());
+    }
+
+    public static List<ScheduleTask> load(ClassLoader classLoader) {
+        List<ScheduleTask> tasks = new ArrayList<>();
+        for (Schedulable schedulable : ServiceLoader.load(Schedulable.class, classLoader)) {
+            tasks.add(schedulable.initScheduleTask());
+        }
+        return tasks;
+    }
+
+    /**
+     * Tasks in timing wheel mode, to be passed to {@code TimingWheelScheduler.scheduleAll}.
+     */
+    public static List<WheelTask> loadWheelTasks() {
+        return loadWheelTasks(Thread.currentThread().getContextClassLoader());
+    }
+
+    public static List<WheelTask> loadWheelTasks(ClassLoader classLoader) {
+        List<WheelTask> tasks = new ArrayList<>();
+        for (WheelSchedulable schedulable : ServiceLoader.load(WheelSchedulable.class, classLoader)) {
+            tasks.add(schedulable.initWheelTask());
+        }
+        return tasks;
+    }
+}
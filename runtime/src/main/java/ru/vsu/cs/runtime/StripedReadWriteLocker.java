@@ -0,0 +1,203 @@
+package ru.vsu.cs.runtime;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Striped reentrant read-write locks backing the read/write modes of {@code @StripedLock} proxies. The shared instance
+ * serves proxies without a pool, each pool of {@code @StripedLockOptions} is a static instance of its proxy.
+ * <p>
+ * Distinct keys share a stripe, so a proxied method calling another one of the same locker must not block on
+ * itself: stripes are reentrant, and a thread holding only the read lock of a stripe that asks for its write lock
+ * gets an {@link IllegalStateException} instead of a deadlock.
+ */
+public final class StripedReadWriteLocker {
+
+    public static final int DEFAULT_STRIPES = 256;
+    private static final StripedReadWriteLocker INSTANCE = new StripedReadWriteLocker(DEFAULT_STRIPES);
+
+    private final Stripe[] stripes;
+    private final int mask;
+
+    /**
+     * @param stripes number of stripes, rounded up to a power of two
+     */
+    public StripedReadWriteLocker(int stripes) {
+        if (stripes < 1 || stripes > 1 << 30) {
+            throw new IllegalArgumentException("Stripes must be from 1 to 2^30, got " + stripes);
+        }
+        int size = stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Stripe[size];
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    public static StripedReadWriteLocker getInstance() {
+        return INSTANCE;
+    }
+
+    public Stripe stripe(Object key) {
+        return stripes[indexOf(key)];
+    }
+
+    /**
+     * Maps keys to distinct stripe indexes in ascending order, expanding keys that are collections.
+     */
+    public int[] stripesFor(Object... keys) {
+        int count = 0;
+        for (Object key : keys) {
+            count += key instanceof Collection ? ((Collection<?>) key).size() : 1;
+        }
+        int[] indexes = new int[count];
+        int position = 0;
+        for (Object key : keys) {
+            if (key instanceof Collection) {
+                for (Object element : (Collection<?>) key) {
+                    if (position == indexes.length) {
+                        indexes = Arrays.copyOf(indexes, indexes.length * 2 + 1);
+                    }
+                    indexes[position++] = indexOf(element);
+                }
+            } else {
+                if (position == indexes.length) {
+                    indexes = Arrays.copyOf(indexes, indexes.length * 2 + 1);
+                }
+                indexes[position++] = indexOf(key);
+            }
+        }
+        Arrays.sort(indexes, 0, position);
+        int unique = 0;
+        for (int i = 0; i < position; i++) {
+            if (unique == 0 || indexes[unique - 1] != indexes[i]) {
+                indexes[unique++] = indexes[i];
+            }
+        }
+        return unique == indexes.length ? indexes : Arrays.copyOf(indexes, unique);
+    }
+
+    /**
+     * Locks the stripes in the given order. If locking one of them fails, the stripes already locked are unlocked
+     * before the failure is rethrown, since the caller only unlocks stripes it managed to lock.
+     */
+    public void lockAll(int[] stripeIndexes, boolean write) {
+        int locked = 0;
+        try {
+            for (; locked < stripeIndexes.length; locked++) {
+                if (write) {
+                    stripes[stripeIndexes[locked]].lockWrite();
+                } else {
+                    stripes[stripeIndexes[locked]].lockRead();
+                }
+            }
+        } catch (Throwable e) {
+            unlockFirst(stripeIndexes, locked, write);
+            throw e;
+        }
+    }
+
+    public void unlockAll(int[] stripeIndexes, boolean write) {
+        unlockFirst(stripeIndexes, stripeIndexes.length, write);
+    }
+
+    private void unlockFirst(int[] stripeIndexes, int count, boolean write) {
+        for (int i = count - 1; i >= 0; i--) {
+            if (write) {
+                stripes[stripeIndexes[i]].unlockWrite();
+            } else {
+                stripes[stripeIndexes[i]].unlockRead();
+            }
+        }
+    }
+
+    private int indexOf(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    public void readLock(Object key) {
+        stripe(key).lockRead();
+    }
+
+    public void unlockRead(Object key) {
+        stripe(key).unlockRead();
+    }
+
+    public void writeLock(Object key) {
+        stripe(key).lockWrite();
+    }
+
+    public void unlockWrite(Object key) {
+        stripe(key).unlockWrite();
+    }
+
+    public int stripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Reentrant read-write lock of one stripe with a version for optimistic reads: the version is odd while a writer
+     * holds the stripe and changes with every write, like the stamp of a {@link java.util.concurrent.locks.StampedLock}.
+     */
+    public static final class Stripe extends ReentrantReadWriteLock {
+
+        private static final long serialVersionUID = 1L;
+        private static final VarHandle VERSION;
+
+        static {
+            try {
+                VERSION = MethodHandles.lookup().findVarHandle(Stripe.class, "version", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private volatile long version = 2L;
+
+        private Stripe() {
+        }
+
+        public void lockRead() {
+            readLock().lock();
+        }
+
+        public void unlockRead() {
+            readLock().unlock();
+        }
+
+        public void lockWrite() {
+            if (getReadHoldCount() > 0 && !isWriteLockedByCurrentThread()) {
+                throw new IllegalStateException("Write lock of a stripe is requested by a thread holding its read lock;"
+                        + " a READ method must not call a WRITE method of the same locker");
+            }
+            writeLock().lock();
+            if (getWriteHoldCount() == 1) {
+                VERSION.getAndAdd(this, 1L);
+            }
+        }
+
+        public void unlockWrite() {
+            if (getWriteHoldCount() == 1) {
+                VERSION.getAndAdd(this, 1L);
+            }
+            writeLock().unlock();
+        }
+
+        /**
+         * Returns a stamp to {@link #validate} after reading without a lock, or {@code 0} while a writer holds the stripe.
+         */
+        public long tryOptimisticRead() {
+            long current = version;
+            return (current & 1L) == 0L ? current : 0L;
+        }
+
+        public boolean validate(long stamp) {
+            VarHandle.acquireFence();
+            return stamp != 0L && stamp == version;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package ru.vsu.cs.runtime.limit;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrency limit backed by a non-fair {@link Semaphore}: taking and returning a permit is a single CAS on its
+ * state, only waiting callers are parked.
+ */
+public final class Bulkhead implements Limiter {
+
+    private final Semaphore permits;
+
+    public Bulkhead(int permits) {
+        this.permits = new Semaphore(permits);
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        return permits.tryAcquire();
+    }
+
+    @Override
+    public boolean tryAcquire(long timeout, TimeUnit unit) {
+        try {
+            return permits.tryAcquire(timeout, unit);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public void release() {
+        permits.release();
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+}
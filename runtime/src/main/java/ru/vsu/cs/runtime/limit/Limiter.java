@@ -0,0 +1,18 @@
+package ru.vsu.cs.runtime.limit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local limiter of a {@code @LocalLimiter} proxy. Every successful acquire must be followed by {@link #release()}.
+ */
+public interface Limiter {
+
+    boolean tryAcquire();
+
+    /**
+     * Waits up to {@code timeout} for a permit. Does not throw on interrupt, the interrupt flag is kept.
+     */
+    boolean tryAcquire(long timeout, TimeUnit unit);
+
+    void release();
+}
@@ -0,0 +1,67 @@
+package ru.vsu.cs.runtime.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token bucket kept as the theoretical arrival time of the next call in one {@link AtomicLong}, so acquiring is a CAS
+ * and no refill task is needed. A waiting caller reserves its token up front and sleeps until the token is due.
+ */
+public final class TokenBucket implements Limiter {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong nextFreeNanos = new AtomicLong(System.nanoTime());
+
+    public TokenBucket(int permits, long refillPerSecond) {
+        this.intervalNanos = Math.max(1L, TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+        this.burstNanos = intervalNanos * permits;
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        return reserve(0L) == 0L;
+    }
+
+    @Override
+    public boolean tryAcquire(long timeout, TimeUnit unit) {
+        long delay = reserve(unit.toNanos(timeout));
+        if (delay < 0L) {
+            return false;
+        }
+        // the token is already taken, so an interrupt does not cancel the call and is restored once it is due
+        boolean interrupted = false;
+        long deadline = System.nanoTime() + delay;
+        for (long left = delay; left > 0L; left = deadline - System.nanoTime()) {
+            LockSupport.parkNanos(this, left);
+            interrupted |= Thread.interrupted();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
+    }
+
+    @Override
+    public void release() {
+    }
+
+    /**
+     * Returns the nanos until the reserved token is due, or {@code -1} if it is due later than {@code maxDelayNanos}.
+     */
+    private long reserve(long maxDelayNanos) {
+        while (true) {
+            long now = System.nanoTime();
+            long current = nextFreeNanos.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long delay = Math.max(0L, next - now - burstNanos);
+            if (delay > maxDelayNanos) {
+                return -1L;
+            }
+            if (nextFreeNanos.compareAndSet(current, next)) {
+                return delay;
+            }
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package ru.vsu.cs.runtime.metrics;
+
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wait time, hold time, acquisition, timeout and failure counts of one proxied method and key family.
+ * Timeouts count acquisitions given up with a {@link TimeoutException}, failures count acquisitions that threw
+ * anything else, e.g. an unavailable DAO or a read lock asking for the write lock of its stripe.
+ */
+public final class GuardMetrics {
+
+    private final String name;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LatencyHistogram waitTime = new LatencyHistogram();
+    private final LatencyHistogram holdTime = new LatencyHistogram();
+
+    GuardMetrics(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Records the wait since {@code waitStartNanos} and returns the start of the hold.
+     */
+    public long acquired(long waitStartNanos) {
+        long now = System.nanoTime();
+        long waitNanos = now - waitStartNanos;
+        acquisitions.increment();
+        waitTime.record(waitNanos);
+        for (GuardMetricsListener listener : GuardMetricsRegistry.listeners()) {
+            listener.onAcquired(this, waitNanos);
+        }
+        return now;
+    }
+
+    public void released(long holdStartNanos) {
+        long holdNanos = System.nanoTime() - holdStartNanos;
+        holdTime.record(holdNanos);
+        for (GuardMetricsListener listener : GuardMetricsRegistry.listeners()) {
+            listener.onReleased(this, holdNanos);
+        }
+    }
+
+    public void timedOut(long waitStartNanos) {
+        long waitNanos = System.nanoTime() - waitStartNanos;
+        timeouts.increment();
+        for (GuardMetricsListener listener : GuardMetricsRegistry.listeners()) {
+            listener.onTimeout(this, waitNanos);
+        }
+    }
+
+    /**
+     * Records an acquisition that threw {@code error}, as a timeout if a {@link TimeoutException} caused it.
+     */
+    public void failed(long waitStartNanos, Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TimeoutException) {
+                timedOut(waitStartNanos);
+                return;
+            }
+        }
+        long waitNanos = System.nanoTime() - waitStartNanos;
+        failures.increment();
+        for (GuardMetricsListener listener : GuardMetricsRegistry.listeners()) {
+            listener.onFailure(this, waitNanos, error);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    public LatencyHistogram getWaitTime() {
+        return waitTime;
+    }
+
+    public LatencyHistogram getHoldTime() {
+        return holdTime;
+    }
+}
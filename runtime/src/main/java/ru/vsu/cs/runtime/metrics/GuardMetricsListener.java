@@ -0,0 +1,21 @@
+package ru.vsu.cs.runtime.metrics;
+
+/**
+ * Receives events of instrumented proxies. Implementations are found with {@link java.util.ServiceLoader}
+ * or registered with {@link GuardMetricsRegistry#addListener(GuardMetricsListener)}; they are called on the
+ * proxied thread and must be fast.
+ */
+public interface GuardMetricsListener {
+
+    default void onAcquired(GuardMetrics metrics, long waitNanos) {
+    }
+
+    default void onReleased(GuardMetrics metrics, long holdNanos) {
+    }
+
+    default void onTimeout(GuardMetrics metrics, long waitNanos) {
+    }
+
+    default void onFailure(GuardMetrics metrics, long waitNanos, Throwable error) {
+    }
+}
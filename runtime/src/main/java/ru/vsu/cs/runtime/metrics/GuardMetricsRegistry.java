@@ -0,0 +1,51 @@
+package ru.vsu.cs.runtime.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Metrics of all instrumented proxies of the JVM, keyed by {@code class.method[key family]}.
+ */
+public final class GuardMetricsRegistry {
+
+    private static final ConcurrentHashMap<String, GuardMetrics> METRICS = new ConcurrentHashMap<>();
+    private static volatile GuardMetricsListener[] listeners = loadListeners();
+
+    private GuardMetricsRegistry() {
+    }
+
+    public static GuardMetrics metrics(String name) {
+        return METRICS.computeIfAbsent(name, GuardMetrics::new);
+    }
+
+    public static Collection<GuardMetrics> all() {
+        return Collections.unmodifiableCollection(METRICS.values());
+    }
+
+    public static synchronized void addListener(GuardMetricsListener listener) {
+        GuardMetricsListener[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    public static synchronized void removeListener(GuardMetricsListener listener) {
+        List<GuardMetricsListener> updated = new ArrayList<>(Arrays.asList(listeners));
+        updated.remove(listener);
+        listeners = updated.toArray(new GuardMetricsListener[0]);
+    }
+
+    static GuardMetricsListener[] listeners() {
+        return listeners;
+    }
+
+    private static GuardMetricsListener[] loadListeners() {
+        List<GuardMetricsListener> loaded = new ArrayList<>();
+        ServiceLoader.load(GuardMetricsListener.class).forEach(loaded::add);
+        return loaded.toArray(new GuardMetricsListener[0]);
+    }
+}
@@ -0,0 +1,60 @@
+package ru.vsu.cs.runtime.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of nanosecond latencies with power-of-two buckets: bucket {@code i} counts values whose highest
+ * set bit is {@code i - 1}, bucket {@code 0} counts zeros. Recording does not allocate once the adders are inflated.
+ */
+public final class LatencyHistogram {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0L);
+        buckets[Math.min(BUCKETS - Long.numberOfLeadingZeros(value), BUCKETS - 1)].increment();
+        total.add(value);
+    }
+
+    public long count() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    public long totalNanos() {
+        return total.sum();
+    }
+
+    /**
+     * Upper bound of the bucket that contains the given quantile, e.g. {@code 0.99}.
+     */
+    public long quantileUpperBoundNanos(double quantile) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets[i].sum();
+            count += counts[i];
+        }
+        long rank = (long) Math.ceil(quantile * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return i == 0 ? 0L : (1L << i) - 1;
+            }
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,13 @@
+/**
+ * Run-time support of the generated proxies, shipped as {@code ru.vsu.cs:diplom-annotation-processor-runtime}
+ * together with the annotations of {@code ru.vsu.cs.annotation}. The processor artifact is only needed on the
+ * annotation processor path, the runtime artifact must be a regular dependency of the application:
+ * <pre>
+ * dependencies {
+ *     implementation 'ru.vsu.cs:diplom-annotation-processor-runtime:1.0'
+ *     annotationProcessor 'ru.vsu.cs:diplom-annotation-processor:1.0'
+ * }
+ * </pre>
+ * The processor reports an error when a proxy needs this package and it is missing from the compile classpath.
+ */
+package ru.vsu.cs.runtime;
@@ -0,0 +1,139 @@
+package ru.vsu.cs.runtime.schedule;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+
+/**
+ * Cron expression of {@code second minute hour day-of-month month day-of-week}; the seconds field may be omitted.
+ * Fields accept {@code *}, {@code ?}, numbers, ranges {@code a-b}, comma separated lists and a step {@code /n} after
+ * {@code *}, a number or a range. Day of week is {@code 0-7} where both {@code 0} and {@code 7} are Sunday. As in cron,
+ * a day matches either day field when both are restricted.
+ */
+public final class CronExpression {
+
+    private final String expression;
+    private final BitSet seconds;
+    private final BitSet minutes;
+    private final BitSet hours;
+    private final BitSet daysOfMonth;
+    private final BitSet months;
+    private final BitSet daysOfWeek;
+    private final boolean daysOfMonthRestricted;
+    private final boolean daysOfWeekRestricted;
+
+    private CronExpression(String expression) {
+        this.expression = expression;
+        String[] fields = expression.trim().split("\\s+");
+        if (fields.length != 5 && fields.length != 6) {
+            throw new IllegalArgumentException("Cron expression must have 5 or 6 fields: " + expression);
+        }
+        int offset = fields.length - 5;
+        this.seconds = offset == 0 ? parseField("0", 0, 59) : parseField(fields[0], 0, 59);
+        this.minutes = parseField(fields[offset], 0, 59);
+        this.hours = parseField(fields[offset + 1], 0, 23);
+        this.daysOfMonth = parseField(fields[offset + 2], 1, 31);
+        this.months = parseField(fields[offset + 3], 1, 12);
+        this.daysOfWeek = parseField(fields[offset + 4], 0, 7);
+        if (daysOfWeek.get(7)) {
+            daysOfWeek.set(0);
+        }
+        this.daysOfMonthRestricted = isRestricted(fields[offset + 2]);
+        this.daysOfWeekRestricted = isRestricted(fields[offset + 4]);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the expression is malformed
+     */
+    public static CronExpression parse(String expression) {
+        return new CronExpression(expression);
+    }
+
+    /**
+     * Returns the first matching time strictly after {@code after}, truncated to seconds.
+     *
+     * @throws IllegalStateException if the expression does not match within five years, e.g. {@code 0 0 30 2 *}
+     */
+    public ZonedDateTime next(ZonedDateTime after) {
+        ZonedDateTime time = after.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        int lastYear = after.getYear() + 5;
+        while (time.getYear() <= lastYear) {
+            if (!months.get(time.getMonthValue())) {
+                time = time.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1).plusMonths(1);
+            } else if (!matchesDay(time)) {
+                time = time.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            } else if (!hours.get(time.getHour())) {
+                time = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            } else if (!minutes.get(time.getMinute())) {
+                time = time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+            } else if (!seconds.get(time.getSecond())) {
+                time = time.plusSeconds(1);
+            } else {
+                return time;
+            }
+        }
+        throw new IllegalStateException("Cron expression " + expression + " does not match any time until " + lastYear);
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private boolean matchesDay(ZonedDateTime time) {
+        boolean dayOfMonth = daysOfMonth.get(time.getDayOfMonth());
+        boolean dayOfWeek = daysOfWeek.get(time.getDayOfWeek().getValue() % 7);
+        if (daysOfMonthRestricted && daysOfWeekRestricted) {
+            return dayOfMonth || dayOfWeek;
+        }
+        return dayOfMonth && dayOfWeek;
+    }
+
+    private static boolean isRestricted(String field) {
+        return !"*".equals(field) && !"?".equals(field);
+    }
+
+    private static BitSet parseField(String field, int min, int max) {
+        BitSet values = new BitSet(max + 1);
+        for (String part : field.split(",")) {
+            int step = 1;
+            String range = part;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = parseNumber(part.substring(slash + 1), 1, max, field);
+                range = part.substring(0, slash);
+            }
+            int from;
+            int to;
+            if ("*".equals(range) || "?".equals(range)) {
+                from = min;
+                to = max;
+            } else if (range.indexOf('-') > 0) {
+                from = parseNumber(range.substring(0, range.indexOf('-')), min, max, field);
+                to = parseNumber(range.substring(range.indexOf('-') + 1), min, max, field);
+            } else {
+                from = parseNumber(range, min, max, field);
+                to = slash >= 0 ? max : from;
+            }
+            if (from > to) {
+                throw new IllegalArgumentException("Invalid range in cron field: " + field);
+            }
+            for (int value = from; value <= to; value += step) {
+                values.set(value);
+            }
+        }
+        return values;
+    }
+
+    private static int parseNumber(String value, int min, int max, String field) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number < min || number > max) {
+                throw new IllegalArgumentException("Value " + number + " is out of " + min + "-" + max + " in cron field: " + field);
+            }
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number in cron field: " + field, e);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package ru.vsu.cs.runtime.schedule;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel for many {@link WheelTask}s: one wheel thread moves due tasks to a small worker pool, so
+ * scheduling costs O(1) per run whatever the number of tasks. Times are rounded up to {@code tickMillis}, which
+ * is also the shortest effective interval. Runs missed because the wheel thread was paused are skipped, not
+ * caught up. A task whose next run cannot be computed is dropped and the error is passed to the uncaught exception
+ * handler of the wheel thread, the other tasks keep running.
+ * <p>
+ * The wheel thread does not wake up every tick: it parks until the tick of the next occupied bucket, or until a task
+ * is scheduled when the wheel is empty, and then runs the skipped empty ticks back to back.
+ */
+public final class TimingWheelScheduler implements AutoCloseable {
+
+    public static final long DEFAULT_TICK_MILLIS = 1;
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<List<Entry>> wheel;
+    private final ConcurrentLinkedQueue<Entry> added = new ConcurrentLinkedQueue<>();
+    private final ExecutorService workers;
+    private final Thread wheelThread;
+    private final long startNanos = System.nanoTime();
+    private long tick;
+    private int size;
+    private volatile boolean closed;
+
+    public TimingWheelScheduler() {
+        this(DEFAULT_TICK_MILLIS, DEFAULT_WHEEL_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param wheelSize buckets of the wheel, rounded up to a power of two
+     */
+    public TimingWheelScheduler(long tickMillis, int wheelSize, int workerThreads) {
+        if (tickMillis < 1 || wheelSize < 1 || workerThreads < 1) {
+            throw new IllegalArgumentException("Tick, wheel size and worker threads must be positive");
+        }
+        int instance = INSTANCES.incrementAndGet();
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+        int buckets = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << (wheelSize > 1 ? 1 : 0);
+        this.mask = buckets - 1;
+        this.wheel = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            wheel.add(new ArrayList<>());
+        }
+        AtomicInteger workerIds = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "timing-wheel-" + instance + "-worker-" + workerIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.wheelThread = new Thread(this::runWheel, "timing-wheel-" + instance);
+        wheelThread.setDaemon(true);
+        wheelThread.start();
+    }
+
+    public void schedule(WheelTask task) {
+        if (closed) {
+            throw new IllegalStateException("Scheduler is closed");
+        }
+        long jitterNanos = task.getJitterMillis() > 0
+                ? TimeUnit.MILLISECONDS.toNanos(ThreadLocalRandom.current().nextLong(task.getJitterMillis() + 1))
+                : 0L;
+        Entry entry = new Entry(task, jitterNanos);
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime from = task.getStart() != null && task.getStart().isAfter(now) ? task.getStart() : now;
+        if (task.getCron() != null) {
+            entry.cronTime = task.getCron().next(from.minusSeconds(1));
+            entry.deadlineNanos = deadlineOf(entry.cronTime, jitterNanos);
+        } else {
+            entry.deadlineNanos = deadlineOf(from, jitterNanos);
+        }
+        added.add(entry);
+        LockSupport.unpark(wheelThread);
+    }
+
+    public void scheduleAll(Collection<WheelTask> tasks) {
+        tasks.forEach(this::schedule);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(wheelThread);
+        workers.shutdown();
+    }
+
+    private void runWheel() {
+        while (!closed) {
+            transferAdded();
+            long tickDeadline = tickNanos * (tick + 1);
+            if (tickDeadline - elapsedNanos() > 0) {
+                park();
+                continue;
+            }
+            expire(wheel.get((int) (tick & mask)), tickDeadline);
+            tick++;
+        }
+    }
+
+    /**
+     * Parks until the tick of the next occupied bucket. An empty wheel parks until {@link #schedule} or
+     * {@link #close} and then moves to the current tick, as there is no entry to count the skipped rounds of.
+     */
+    private void park() {
+        if (size == 0) {
+            LockSupport.park(this);
+            tick = Math.max(tick, elapsedNanos() / tickNanos);
+            return;
+        }
+        int ticks = 0;
+        while (wheel.get((int) ((tick + ticks) & mask)).isEmpty()) {
+            ticks++;
+        }
+        LockSupport.parkNanos(this, tickNanos * (tick + ticks + 1) - elapsedNanos());
+    }
+
+    private void transferAdded() {
+        for (Entry entry = added.poll(); entry != null; entry = added.poll()) {
+            long calculated = entry.deadlineNanos / tickNanos;
+            entry.remainingRounds = (calculated - tick) / wheel.size();
+            wheel.get((int) (Math.max(calculated, tick) & mask)).add(entry);
+            size++;
+        }
+    }
+
+    private void expire(List<Entry> bucket, long tickDeadline) {
+        int i = 0;
+        while (i < bucket.size()) {
+            Entry entry = bucket.get(i);
+            if (entry.remainingRounds > 0) {
+                entry.remainingRounds--;
+                i++;
+                continue;
+            }
+            Entry last = bucket.remove(bucket.size() - 1);
+            size--;
+            if (i < bucket.size()) {
+                bucket.set(i, last);
+            }
+            try {
+                entry.task.trigger(workers);
+            } catch (Throwable e) {
+                reportFailure(e);
+            }
+            try {
+                reschedule(entry, tickDeadline);
+            } catch (Throwable e) {
+                reportFailure(e);
+            }
+        }
+    }
+
+    /**
+     * Passes the failure of one task to the uncaught exception handler and keeps the wheel thread running the others.
+     */
+    private void reportFailure(Throwable error) {
+        try {
+            wheelThread.getUncaughtExceptionHandler().uncaughtException(wheelThread, error);
+        } catch (Throwable ignored) {
+            // a failing handler must not stop the wheel either
+        }
+    }
+
+    private void reschedule(Entry entry, long tickDeadline) {
+        WheelTask task = entry.task;
+        if (task.getCron() != null) {
+            entry.cronTime = task.getCron().next(entry.cronTime.isBefore(ZonedDateTime.now()) ? ZonedDateTime.now() : entry.cronTime);
+            entry.deadlineNanos = deadlineOf(entry.cronTime, entry.jitterNanos);
+        } else {
+            entry.deadlineNanos = nextDeadline(entry.deadlineNanos, task.getIntervalNanos(), tickDeadline);
+        }
+        added.add(entry);
+    }
+
+    /**
+     * Returns the first deadline after {@code tickDeadline} on the grid of {@code deadlineNanos} plus multiples of
+     * {@code intervalNanos}, so the runs missed by a paused wheel are skipped instead of run back to back.
+     */
+    static long nextDeadline(long deadlineNanos, long intervalNanos, long tickDeadline) {
+        long next = deadlineNanos + intervalNanos;
+        if (next < tickDeadline) {
+            next += ((tickDeadline - next) / intervalNanos + 1) * intervalNanos;
+        }
+        return next;
+    }
+
+    private long deadlineOf(ZonedDateTime time, long jitterNanos) {
+        long delayNanos = TimeUnit.MILLISECONDS.toNanos(time.toInstant().toEpochMilli() - System.currentTimeMillis());
+        return elapsedNanos() + Math.max(0L, delayNanos) + jitterNanos;
+    }
+
+    private long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    private static final class Entry {
+
+        private final WheelTask task;
+        private final long jitterNanos;
+        private long deadlineNanos;
+        private ZonedDateTime cronTime;
+        private long remainingRounds;
+
+        private Entry(WheelTask task, long jitterNanos) {
+            this.task = task;
+            this.jitterNanos = jitterNanos;
+        }
+    }
+}
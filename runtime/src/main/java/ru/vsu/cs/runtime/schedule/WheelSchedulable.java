@@ -0,0 +1,10 @@
+package ru.vsu.cs.runtime.schedule;
+
+/**
+ * Generated for {@code @Scheduled} methods in timing wheel mode and registered as a service, the counterpart of
+ * {@code Schedulable} for {@link TimingWheelScheduler}.
+ */
+public interface WheelSchedulable {
+
+    WheelTask initWheelTask();
+}
@@ -0,0 +1,104 @@
+package ru.vsu.cs.runtime.schedule;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Task of {@link TimingWheelScheduler}, run every {@code interval} or at the times of a {@link CronExpression}.
+ * The first run is at {@code start} or when the task is scheduled, delayed by a random jitter of up to
+ * {@code jitterMillis}. A run that falls on a still running task is queued while fewer than {@code maxQueued} runs
+ * wait, otherwise skipped.
+ */
+public final class WheelTask {
+
+    public static final String DEFAULT_START = "DEFAULT";
+    public static final DateTimeFormatter START_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy'T'HH:mm:ss");
+
+    private final String id;
+    private final long intervalNanos;
+    private final CronExpression cron;
+    private final ZonedDateTime start;
+    private final long jitterMillis;
+    private final int maxQueued;
+    private final Runnable runnable;
+    private final AtomicInteger runs = new AtomicInteger();
+
+    private WheelTask(String id, long intervalNanos, CronExpression cron, ZonedDateTime start, long jitterMillis, int maxQueued, Runnable runnable) {
+        this.id = id;
+        this.intervalNanos = intervalNanos;
+        this.cron = cron;
+        this.start = start;
+        this.jitterMillis = jitterMillis;
+        this.maxQueued = maxQueued;
+        this.runnable = runnable;
+    }
+
+    /**
+     * @param cron  cron expression or an empty string to run every {@code intervalMillis}
+     * @param start {@link #DEFAULT_START} or the first run time in {@link #START_FORMAT} of the default time zone
+     */
+    public static WheelTask of(String id, long intervalMillis, String cron, String start, long jitterMillis, int maxQueued, Runnable runnable) {
+        if (cron.isEmpty() && intervalMillis < 1 || jitterMillis < 0 || maxQueued < 0) {
+            throw new IllegalArgumentException("Interval must be positive without cron, jitter and queue size must not be negative for task " + id);
+        }
+        return new WheelTask(id,
+                TimeUnit.MILLISECONDS.toNanos(intervalMillis),
+                cron.isEmpty() ? null : CronExpression.parse(cron),
+                DEFAULT_START.equals(start) ? null : LocalDateTime.parse(start, START_FORMAT).atZone(ZoneId.systemDefault()),
+                jitterMillis,
+                maxQueued,
+                runnable);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    long getIntervalNanos() {
+        return intervalNanos;
+    }
+
+    CronExpression getCron() {
+        return cron;
+    }
+
+    ZonedDateTime getStart() {
+        return start;
+    }
+
+    long getJitterMillis() {
+        return jitterMillis;
+    }
+
+    /**
+     * Called by the wheel thread on every due time; the task itself runs on {@code workers}.
+     */
+    void trigger(Executor workers) {
+        int before = runs.getAndUpdate(current -> current <= maxQueued ? current + 1 : current);
+        if (before != 0) {
+            return;
+        }
+        try {
+            workers.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            runs.set(0);
+        }
+    }
+
+    private void drain() {
+        do {
+            try {
+                runnable.run();
+            } catch (Throwable e) {
+                Thread thread = Thread.currentThread();
+                thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+            }
+        } while (runs.decrementAndGet() > 0);
+    }
+}
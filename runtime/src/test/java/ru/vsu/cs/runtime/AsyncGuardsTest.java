@@ -0,0 +1,67 @@
+package ru.vsu.cs.runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AsyncGuardsTest {
+
+    @Test
+    void releaseRunsOnceWhenTheCallCompletes() throws Exception {
+        CompletableFuture<String> call = new CompletableFuture<>();
+        AtomicInteger releases = new AtomicInteger();
+        CompletableFuture<String> result = AsyncGuards.guard(CompletableFuture.completedFuture(null), () -> call, releases::incrementAndGet);
+        assertEquals(0, releases.get());
+
+        call.complete("value");
+
+        assertEquals("value", result.get(1, TimeUnit.SECONDS));
+        assertEquals(1, releases.get());
+    }
+
+    @Test
+    void failedAcquisitionRunsNeitherCallNorRelease() {
+        AtomicBoolean called = new AtomicBoolean();
+        AtomicBoolean released = new AtomicBoolean();
+        CompletableFuture<String> result = AsyncGuards.guard(CompletableFuture.failedFuture(new IllegalStateException("not acquired")), () -> {
+            called.set(true);
+            return CompletableFuture.completedFuture("value");
+        }, () -> released.set(true));
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertEquals("not acquired", error.getCause().getMessage());
+        assertFalse(called.get());
+        assertFalse(released.get());
+    }
+
+    @Test
+    void releaseFailureIsSuppressedIntoTheCallFailure() {
+        IllegalStateException callError = new IllegalStateException("call failed");
+        CompletableFuture<String> result = AsyncGuards.guard(CompletableFuture.completedFuture(null),
+                () -> CompletableFuture.failedFuture(callError), () -> {
+                    throw new IllegalArgumentException("release failed");
+                });
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertEquals(callError, error.getCause());
+        assertEquals(1, callError.getSuppressed().length);
+    }
+
+    @Test
+    void nullStageFailsTheResultAndReleases() {
+        AtomicInteger releases = new AtomicInteger();
+        CompletableFuture<String> result = AsyncGuards.guard(CompletableFuture.completedFuture(null), () -> null, releases::incrementAndGet);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertEquals(NullPointerException.class, error.getCause().getClass());
+        assertEquals(1, releases.get());
+    }
+}
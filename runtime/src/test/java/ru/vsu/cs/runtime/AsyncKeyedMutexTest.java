@@ -0,0 +1,64 @@
+package ru.vsu.cs.runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncKeyedMutexTest {
+
+    private final AsyncKeyedMutex mutex = new AsyncKeyedMutex();
+
+    @Test
+    void waitersAreHandedTheKeyInArrivalOrder() throws Exception {
+        assertTrue(mutex.acquire("key").isDone());
+        CompletableFuture<Void> first = mutex.acquire("key");
+        CompletableFuture<Void> second = mutex.acquire("key");
+        assertFalse(first.isDone());
+
+        mutex.release("key");
+        first.get(1, TimeUnit.SECONDS);
+        assertFalse(second.isDone());
+
+        mutex.release("key");
+        second.get(1, TimeUnit.SECONDS);
+        mutex.release("key");
+        assertTrue(mutex.acquire("key").isDone());
+    }
+
+    @Test
+    void otherKeysAreNotExcluded() {
+        assertTrue(mutex.acquire("first").isDone());
+        assertTrue(mutex.acquire("second").isDone());
+    }
+
+    @Test
+    void exceptionallyCompletedCallReleasesTheKey() throws Exception {
+        CompletableFuture<String> call = new CompletableFuture<>();
+        CompletableFuture<String> result = mutex.withLock("key", () -> call);
+        CompletableFuture<Void> next = mutex.acquire("key");
+        assertFalse(next.isDone());
+
+        call.completeExceptionally(new IllegalStateException("call failed"));
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertEquals(IllegalStateException.class, error.getCause().getClass());
+        next.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void callThrowingBeforeReturningAStageReleasesTheKey() throws Exception {
+        CompletableFuture<String> result = mutex.withLock("key", () -> {
+            throw new IllegalStateException("call failed");
+        });
+
+        assertTrue(result.isCompletedExceptionally());
+        mutex.acquire("key").get(1, TimeUnit.SECONDS);
+    }
+}
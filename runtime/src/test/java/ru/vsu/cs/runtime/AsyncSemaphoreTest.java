@@ -0,0 +1,83 @@
+package ru.vsu.cs.runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncSemaphoreTest {
+
+    @Test
+    void permitsAreCountedByWeight() throws Exception {
+        AsyncSemaphore semaphore = new AsyncSemaphore(3);
+        assertTrue(semaphore.acquire(2).isDone());
+        assertTrue(semaphore.acquire(1).isDone());
+        CompletableFuture<Void> waiting = semaphore.acquire(1);
+        assertFalse(waiting.isDone());
+
+        semaphore.release(1);
+
+        waiting.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void lighterWaiterDoesNotOvertakeHeavierOne() throws Exception {
+        AsyncSemaphore semaphore = new AsyncSemaphore(2);
+        assertTrue(semaphore.acquire(2).isDone());
+        CompletableFuture<Void> heavy = semaphore.acquire(2);
+        CompletableFuture<Void> light = semaphore.acquire(1);
+
+        semaphore.release(1);
+        assertFalse(light.isDone());
+        semaphore.release(1);
+        heavy.get(1, TimeUnit.SECONDS);
+        assertFalse(light.isDone());
+
+        semaphore.release(2);
+        light.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void weightAboveThePermitsIsRejected() {
+        AsyncSemaphore semaphore = new AsyncSemaphore(2);
+        assertThrows(IllegalArgumentException.class, () -> semaphore.acquire(3));
+        assertThrows(IllegalArgumentException.class, () -> semaphore.acquire(0));
+    }
+
+    @Test
+    void exceptionallyCompletedCallReleasesItsPermits() throws Exception {
+        AsyncSemaphore semaphore = new AsyncSemaphore(2);
+        CompletableFuture<String> call = new CompletableFuture<>();
+        AtomicBoolean remoteReleased = new AtomicBoolean();
+        CompletableFuture<String> result = semaphore.withPermit(2, () -> { }, () -> remoteReleased.set(true), () -> call);
+        CompletableFuture<Void> next = semaphore.acquire(1);
+
+        call.completeExceptionally(new IllegalStateException("call failed"));
+
+        assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        next.get(1, TimeUnit.SECONDS);
+        assertTrue(remoteReleased.get());
+    }
+
+    @Test
+    void failedRemoteAcquireReturnsTheLocalPermit() throws Exception {
+        AsyncSemaphore semaphore = new AsyncSemaphore(1);
+        AtomicBoolean called = new AtomicBoolean();
+        CompletableFuture<String> result = semaphore.withPermit(1, () -> {
+            throw new IllegalStateException("DAO is not available");
+        }, () -> { }, () -> {
+            called.set(true);
+            return CompletableFuture.completedFuture("value");
+        });
+
+        assertThrows(ExecutionException.class, () -> result.get(1, TimeUnit.SECONDS));
+        assertFalse(called.get());
+        semaphore.acquire(1).get(1, TimeUnit.SECONDS);
+    }
+}
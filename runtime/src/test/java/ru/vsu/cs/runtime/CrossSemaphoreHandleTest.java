@@ -0,0 +1,84 @@
+package ru.vsu.cs.runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CrossSemaphoreHandleTest {
+
+    @Test
+    void failedRegistrationIsRetriedByTheNextCall() {
+        InMemoryCrossSemaphoreBackend semaphores = new InMemoryCrossSemaphoreBackend();
+        AtomicInteger failures = new AtomicInteger(1);
+        CrossSemaphoreBackend backend = new CrossSemaphoreBackend() {
+            @Override
+            public void createIfNotExists(UUID id, int permits) {
+                if (failures.getAndDecrement() > 0) {
+                    throw new IllegalStateException("DAO is not available");
+                }
+                semaphores.createIfNotExists(id, permits);
+            }
+
+            @Override
+            public void acquire(UUID id) {
+                semaphores.acquire(id);
+            }
+
+            @Override
+            public boolean tryAcquire(UUID id, long timeout, TimeUnit unit) throws InterruptedException {
+                return semaphores.tryAcquire(id, timeout, unit);
+            }
+
+            @Override
+            public void release(UUID id) {
+                semaphores.release(id);
+            }
+        };
+        CrossSemaphoreHandle handle = new CrossSemaphoreHandle(UUID.randomUUID(), 1, () -> backend);
+
+        assertThrows(IllegalStateException.class, handle::acquire);
+        handle.acquire();
+        handle.release();
+    }
+
+    @Test
+    void semaphoreIsRegisteredOncePerBackend() {
+        AtomicInteger registrations = new AtomicInteger();
+        InMemoryCrossSemaphoreBackend semaphores = new InMemoryCrossSemaphoreBackend();
+        CrossSemaphoreBackend backend = new CrossSemaphoreBackend() {
+            @Override
+            public void createIfNotExists(UUID id, int permits) {
+                registrations.incrementAndGet();
+                semaphores.createIfNotExists(id, permits);
+            }
+
+            @Override
+            public void acquire(UUID id) {
+                semaphores.acquire(id);
+            }
+
+            @Override
+            public boolean tryAcquire(UUID id, long timeout, TimeUnit unit) throws InterruptedException {
+                return semaphores.tryAcquire(id, timeout, unit);
+            }
+
+            @Override
+            public void release(UUID id) {
+                semaphores.release(id);
+            }
+        };
+        CrossSemaphoreHandle handle = new CrossSemaphoreHandle(UUID.randomUUID(), 1, () -> backend);
+
+        for (int i = 0; i < 3; i++) {
+            handle.acquire();
+            handle.release();
+        }
+
+        assertEquals(1, registrations.get());
+    }
+}
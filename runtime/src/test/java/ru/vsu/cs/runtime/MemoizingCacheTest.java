@@ -0,0 +1,180 @@
+package ru.vsu.cs.runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MemoizingCacheTest {
+
+    private static final int CALLERS = 8;
+
+    private final AtomicInteger computations = new AtomicInteger();
+
+    @Test
+    void concurrentCallsOfOneKeyShareOneComputation() throws Exception {
+        MemoizingCache<String> cache = new MemoizingCache<>(16, 0L);
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        calls.add(CompletableFuture.supplyAsync(() -> call(cache, "key", () -> {
+            computing.countDown();
+            release.await();
+            return "value";
+        })));
+        computing.await();
+        for (int i = 1; i < CALLERS; i++) {
+            calls.add(CompletableFuture.supplyAsync(() -> call(cache, "key", () -> "other")));
+        }
+        while (cache.hits() < CALLERS - 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        for (CompletableFuture<String> call : calls) {
+            assertEquals("value", call.get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(1, computations.get());
+        assertEquals(1L, cache.misses());
+        assertEquals("value", call(cache, "key", () -> "other"));
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void failureIsRethrownToWaitersAndNotCached() throws Exception {
+        MemoizingCache<String> cache = new MemoizingCache<>(16, 0L);
+        IllegalStateException failure = new IllegalStateException("load failed");
+        CountDownLatch computing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> leader = CompletableFuture.supplyAsync(() -> call(cache, "key", () -> {
+            computing.countDown();
+            release.await();
+            throw failure;
+        }));
+        computing.await();
+        CompletableFuture<String> waiter = CompletableFuture.supplyAsync(() -> call(cache, "key", () -> "other"));
+        while (cache.hits() < 1) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+
+        assertSame(failure, assertThrows(ExecutionException.class, () -> leader.get(1, TimeUnit.SECONDS)).getCause());
+        assertSame(failure, assertThrows(ExecutionException.class, () -> waiter.get(1, TimeUnit.SECONDS)).getCause());
+        assertEquals(0, cache.size());
+        assertEquals("value", call(cache, "key", () -> "value"));
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    void entryIsComputedAgainAfterTtl() throws Exception {
+        MemoizingCache<String> cache = new MemoizingCache<>(16, 50L);
+        assertEquals("first", call(cache, "key", () -> "first"));
+        assertEquals("first", call(cache, "key", () -> "second"));
+
+        Thread.sleep(80L);
+        assertEquals("second", call(cache, "key", () -> "second"));
+        assertEquals(2, computations.get());
+    }
+
+    @Test
+    void eldestEntryIsEvictedAboveMaxSize() {
+        MemoizingCache<String> cache = new MemoizingCache<>(2, 0L);
+        call(cache, "first", () -> "1");
+        call(cache, "second", () -> "2");
+        call(cache, "third", () -> "3");
+        assertEquals(2, cache.size());
+
+        assertEquals("3", call(cache, "third", () -> "other"));
+        assertEquals("1 again", call(cache, "first", () -> "1 again"));
+        assertEquals(4, computations.get());
+    }
+
+    /**
+     * The failed flight and the expired flight of {@code "renewed"} are still queued, but must not take the place of
+     * the live entries.
+     */
+    @Test
+    void failedAndExpiredFlightsDoNotTakeCapacity() throws Exception {
+        MemoizingCache<String> cache = new MemoizingCache<>(3, 50L);
+        call(cache, "renewed", () -> "old");
+        Thread.sleep(80L);
+        call(cache, "first", () -> "1");
+        call(cache, "renewed", () -> "new");
+        assertThrows(IllegalStateException.class, () -> call(cache, "failed", () -> {
+            throw new IllegalStateException("load failed");
+        }));
+        call(cache, "second", () -> "2");
+        assertEquals(3, cache.size());
+
+        assertEquals("1", call(cache, "first", () -> "other"));
+        assertEquals("new", call(cache, "renewed", () -> "other"));
+        assertEquals("2", call(cache, "second", () -> "other"));
+        assertEquals(5, computations.get());
+
+        call(cache, "third", () -> "3");
+        assertEquals(3, cache.size());
+        assertEquals("1 again", call(cache, "first", () -> "1 again"));
+    }
+
+    /**
+     * A loading flight takes a place while it is computed, so the cache leaves room for the failing one.
+     */
+    @Test
+    void repeatedFailuresDoNotEvictLiveEntries() {
+        MemoizingCache<String> cache = new MemoizingCache<>(3, 0L);
+        call(cache, "first", () -> "1");
+        call(cache, "second", () -> "2");
+        for (int i = 0; i < 10; i++) {
+            assertThrows(IllegalStateException.class, () -> call(cache, "failed", () -> {
+                throw new IllegalStateException("load failed");
+            }));
+        }
+
+        assertEquals("1", call(cache, "first", () -> "other"));
+        assertEquals("2", call(cache, "second", () -> "other"));
+        assertEquals(12, computations.get());
+    }
+
+    @Test
+    void keysCompareArgumentsDeeply() {
+        assertEquals(MemoizingCache.key(1, new int[]{2, 3}), MemoizingCache.key(1, new int[]{2, 3}));
+        assertEquals(MemoizingCache.key(1, new int[]{2, 3}).hashCode(), MemoizingCache.key(1, new int[]{2, 3}).hashCode());
+        assertFalse(MemoizingCache.key(1, new int[]{2, 3}).equals(MemoizingCache.key(1, new int[]{3, 2})));
+        assertSame(MemoizingCache.key(), MemoizingCache.key());
+        assertTrue(MemoizingCache.key((Object) null).equals(MemoizingCache.key((Object) null)));
+    }
+
+    /**
+     * Calls the cache the way a generated {@code @Memoized} method does.
+     */
+    private String call(MemoizingCache<String> cache, Object arg, Callable<String> method) {
+        MemoizingCache.Flight<String> flight = cache.flight(MemoizingCache.key(arg));
+        if (!flight.lead()) {
+            return flight.await();
+        }
+        computations.incrementAndGet();
+        try {
+            String value = method.call();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            flight.fail(e);
+            throw e;
+        } catch (Exception e) {
+            flight.fail(e);
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ru.vsu.cs.runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MicroBatcherTest {
+
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+
+    @Test
+    void fullBatchIsLoadedWithoutWaitingForDelay() throws Exception {
+        MicroBatcher<Integer, String> batcher = new MicroBatcher<>(3, 10_000L, this::load);
+        List<CompletableFuture<String>> calls = loadAsync(batcher, 1, 2, 3);
+
+        for (int i = 0; i < calls.size(); i++) {
+            assertEquals("value " + (i + 1), calls.get(i).get(1, TimeUnit.SECONDS));
+        }
+        assertEquals(1, batches.size());
+        assertEquals(3, batches.get(0).size());
+    }
+
+    @Test
+    void partialBatchIsLoadedAfterDelay() {
+        MicroBatcher<Integer, String> batcher = new MicroBatcher<>(100, 50L, this::load);
+        long start = System.nanoTime();
+        assertEquals("value 1", batcher.load(1));
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(waitedMillis >= 40L, () -> "waited " + waitedMillis + " ms");
+        assertEquals(List.of(List.of(1)), batches);
+    }
+
+    @Test
+    void duplicateKeysShareOneSlot() throws Exception {
+        MicroBatcher<Integer, String> batcher = new MicroBatcher<>(100, 200L, this::load);
+        List<CompletableFuture<String>> calls = loadAsync(batcher, 7, 7, 8);
+
+        assertEquals("value 7", calls.get(0).get(1, TimeUnit.SECONDS));
+        assertEquals("value 7", calls.get(1).get(1, TimeUnit.SECONDS));
+        assertEquals("value 8", calls.get(2).get(1, TimeUnit.SECONDS));
+        assertEquals(1, batches.size());
+        assertEquals(Set.of(7, 8), Set.copyOf(batches.get(0)));
+        assertEquals(2, batches.get(0).size());
+    }
+
+    @Test
+    void keyMissingFromBulkResultGetsNull() {
+        MicroBatcher<Integer, String> batcher = new MicroBatcher<>(1, 10_000L, keys -> Map.of());
+        assertNull(batcher.load(1));
+    }
+
+    @Test
+    void bulkFailureIsThrownToEveryCallerOfBatch() throws Exception {
+        IOException failure = new IOException("bulk call failed");
+        AtomicBoolean failed = new AtomicBoolean();
+        MicroBatcher<Integer, String> batcher = new MicroBatcher<>(2, 10_000L, keys -> {
+            if (failed.compareAndSet(false, true)) {
+                throw failure;
+            }
+            return load(keys);
+        });
+        List<CompletableFuture<String>> calls = loadAsync(batcher, 1, 2);
+
+        for (CompletableFuture<String> call : calls) {
+            assertSame(failure, assertThrows(ExecutionException.class, () -> call.get(1, TimeUnit.SECONDS)).getCause());
+        }
+        List<CompletableFuture<String>> retried = loadAsync(batcher, 1, 2);
+        assertEquals("value 1", retried.get(0).get(1, TimeUnit.SECONDS));
+        assertEquals("value 2", retried.get(1).get(1, TimeUnit.SECONDS));
+        assertEquals(1, batches.size());
+    }
+
+    private List<CompletableFuture<String>> loadAsync(MicroBatcher<Integer, String> batcher, int... keys) {
+        List<CompletableFuture<String>> calls = new ArrayList<>();
+        for (int key : keys) {
+            calls.add(CompletableFuture.supplyAsync(() -> batcher.load(key)));
+        }
+        return calls;
+    }
+
+    private Map<Integer, String> load(List<Integer> keys) {
+        batches.add(List.copyOf(keys));
+        Map<Integer, String> values = new HashMap<>();
+        keys.forEach(key -> values.put(key, "value " + key));
+        return values;
+    }
+}
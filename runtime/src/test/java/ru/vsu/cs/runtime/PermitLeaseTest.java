@@ -0,0 +1,217 @@
+package ru.vsu.cs.runtime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PermitLeaseTest {
+
+    private final InMemoryCrossSemaphoreBackend backend = new InMemoryCrossSemaphoreBackend();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicBoolean running = new AtomicBoolean(true);
+
+    @AfterEach
+    void stop() {
+        running.set(false);
+        executor.shutdownNow();
+    }
+
+    @Test
+    void leasedPermitsAreReusedWithoutTheBackend() {
+        CrossSemaphoreHandle semaphore = handle(2);
+        PermitLease lease = new PermitLease(semaphore, 2, 60_000);
+
+        lease.acquire(1);
+        lease.acquire(1);
+        lease.release(1);
+        lease.release(1);
+
+        assertFalse(backendHasPermit(semaphore));
+        lease.acquire(2);
+        lease.release(2);
+    }
+
+    @Test
+    void callerWaitingOnTheBackendGetsPermitsReleasedUnderTraffic() throws Exception {
+        PermitLease lease = new PermitLease(handle(2), 2, 60_000);
+        CountDownLatch bothHeld = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            executor.execute(() -> {
+                lease.acquire(1);
+                bothHeld.countDown();
+                awaitQuietly(bothHeld);
+                sleep(50);
+                lease.release(1);
+                while (running.get()) {
+                    lease.acquire(1);
+                    lease.release(1);
+                }
+            });
+        }
+        assertTrue(bothHeld.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(() -> lease.acquire(1), executor);
+
+        blocked.get(1, TimeUnit.SECONDS);
+        lease.release(1);
+    }
+
+    @Test
+    void busyLeaseIsReturnedOnceItIsOld() throws Exception {
+        CrossSemaphoreHandle semaphore = handle(1);
+        PermitLease busyNode = new PermitLease(semaphore, 1, 200);
+        PermitLease otherNode = new PermitLease(semaphore, 1, 200);
+        busyNode.acquire(1);
+        busyNode.release(1);
+        executor.execute(() -> {
+            while (running.get()) {
+                busyNode.acquire(1);
+                sleep(1);
+                busyNode.release(1);
+                sleep(1);
+            }
+        });
+
+        CompletableFuture<Void> acquired = CompletableFuture.runAsync(() -> otherNode.acquire(1), executor);
+
+        acquired.get(2, TimeUnit.SECONDS);
+        otherNode.release(1);
+    }
+
+    @Test
+    void idleLeaseIsReturned() throws Exception {
+        CrossSemaphoreHandle semaphore = handle(1);
+        PermitLease lease = new PermitLease(semaphore, 1, 100);
+        lease.acquire(1);
+        lease.release(1);
+
+        assertTrue(backend.tryAcquire(semaphore.id(), 2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void weightedCallersOfTwoNodesDoNotDeadlock() throws Exception {
+        CrossSemaphoreHandle semaphore = handle(4);
+        PermitLease firstNode = new PermitLease(semaphore, 0, 60_000);
+        PermitLease secondNode = new PermitLease(semaphore, 0, 60_000);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger maxInside = new AtomicInteger();
+        List<CompletableFuture<Void>> callers = new ArrayList<>();
+        for (PermitLease node : List.of(firstNode, secondNode, firstNode, secondNode)) {
+            callers.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < 30; i++) {
+                    node.acquire(3);
+                    maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                    inside.decrementAndGet();
+                    node.release(3);
+                }
+            }, executor));
+        }
+
+        CompletableFuture.allOf(callers.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        assertEquals(1, maxInside.get());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(backend.tryAcquire(semaphore.id(), 1, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void weightedCallerTakesLeasedPermits() throws Exception {
+        CrossSemaphoreHandle semaphore = handle(3);
+        PermitLease lease = new PermitLease(semaphore, 3, 60_000);
+        lease.acquire(1);
+        lease.acquire(1);
+        lease.acquire(1);
+        lease.release(1);
+        lease.release(1);
+        lease.release(1);
+
+        CompletableFuture.runAsync(() -> lease.acquire(3), executor).get(1, TimeUnit.SECONDS);
+
+        assertFalse(backendHasPermit(semaphore));
+        lease.release(3);
+    }
+
+    @Test
+    void weightedCallerOverBackendWithoutTimedAcquireReturnsCollectedPermits() {
+        CrossSemaphoreBackend blockingOnly = new CrossSemaphoreBackend() {
+            @Override
+            public void createIfNotExists(UUID id, int permits) {
+                backend.createIfNotExists(id, permits);
+            }
+
+            @Override
+            public void acquire(UUID id) {
+                backend.acquire(id);
+            }
+
+            @Override
+            public boolean tryAcquire(UUID id, long timeout, TimeUnit unit) {
+                throw new UnsupportedOperationException("No timed acquire");
+            }
+
+            @Override
+            public void release(UUID id) {
+                backend.release(id);
+            }
+        };
+        CrossSemaphoreHandle semaphore = new CrossSemaphoreHandle(UUID.randomUUID(), 2, () -> blockingOnly);
+        PermitLease lease = new PermitLease(semaphore, 2, 60_000);
+        lease.acquire(1);
+        lease.release(1);
+
+        assertThrows(UnsupportedOperationException.class, () -> lease.acquire(2));
+
+        assertTrue(backendHasPermit(semaphore));
+        lease.acquire(1);
+        lease.acquire(1);
+        assertFalse(backendHasPermit(semaphore));
+    }
+
+    private CrossSemaphoreHandle handle(int permits) {
+        return new CrossSemaphoreHandle(UUID.randomUUID(), permits, () -> backend);
+    }
+
+    private boolean backendHasPermit(CrossSemaphoreHandle semaphore) {
+        try {
+            if (backend.tryAcquire(semaphore.id(), 0, TimeUnit.MILLISECONDS)) {
+                backend.release(semaphore.id());
+                return true;
+            }
+            return false;
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package ru.vsu.cs.runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StripedReadWriteLockerTest {
+
+    /**
+     * With one stripe every two keys collide, as distinct keys of a real locker occasionally do.
+     */
+    private final StripedReadWriteLocker locker = new StripedReadWriteLocker(1);
+
+    @Test
+    void stripeCountIsRoundedUpToPowerOfTwo() {
+        assertEquals(1, new StripedReadWriteLocker(1).stripeCount());
+        assertEquals(8, new StripedReadWriteLocker(5).stripeCount());
+        assertEquals(StripedReadWriteLocker.DEFAULT_STRIPES, StripedReadWriteLocker.getInstance().stripeCount());
+        assertThrows(IllegalArgumentException.class, () -> new StripedReadWriteLocker(0));
+    }
+
+    @Test
+    void writeOfCollidingKeyInsideWriteDoesNotBlock() throws Exception {
+        CompletableFuture.runAsync(() -> {
+            locker.writeLock("first");
+            locker.writeLock("second");
+            locker.unlockWrite("second");
+            locker.unlockWrite("first");
+        }).get(1, TimeUnit.SECONDS);
+        assertFalse(locker.stripe("first").isWriteLocked());
+    }
+
+    /**
+     * A pooled EXCLUSIVE method calling itself or another one of its pool takes the write lock of a stripe it holds.
+     */
+    @Test
+    void writeOfSameKeyIsReentrantAndStaysExclusiveUntilOutermostUnlock() throws Exception {
+        locker.writeLock("first");
+        locker.writeLock("first");
+        locker.unlockWrite("first");
+        assertFalse(CompletableFuture.supplyAsync(() -> locker.stripe("second").writeLock().tryLock()).get(1, TimeUnit.SECONDS));
+
+        locker.unlockWrite("first");
+        assertTrue(CompletableFuture.supplyAsync(() -> {
+            boolean locked = locker.stripe("second").writeLock().tryLock();
+            locker.stripe("second").writeLock().unlock();
+            return locked;
+        }).get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void readOfCollidingKeyInsideReadDoesNotBlockBehindWaitingWriter() throws Exception {
+        CountDownLatch readLocked = new CountDownLatch(1);
+        CountDownLatch writerQueued = new CountDownLatch(1);
+        CompletableFuture<Void> reader = CompletableFuture.runAsync(() -> {
+            locker.readLock("first");
+            readLocked.countDown();
+            await(writerQueued);
+            locker.readLock("second");
+            locker.unlockRead("second");
+            locker.unlockRead("first");
+        });
+        await(readLocked);
+        CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+            locker.writeLock("third");
+            locker.unlockWrite("third");
+        });
+        while (!locker.stripe("third").hasQueuedThreads()) {
+            Thread.onSpinWait();
+        }
+        writerQueued.countDown();
+
+        reader.get(1, TimeUnit.SECONDS);
+        writer.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void readInsideWriteIsAllowed() {
+        locker.writeLock("first");
+        locker.readLock("second");
+        locker.unlockRead("second");
+        locker.unlockWrite("first");
+        assertFalse(locker.stripe("first").isWriteLocked());
+    }
+
+    @Test
+    void writeInsideReadFailsInsteadOfDeadlocking() {
+        locker.readLock("first");
+        try {
+            assertThrows(IllegalStateException.class, () -> locker.writeLock("second"));
+        } finally {
+            locker.unlockRead("first");
+        }
+        locker.writeLock("second");
+        locker.unlockWrite("second");
+    }
+
+    @Test
+    void optimisticReadIsInvalidatedByWrite() {
+        StripedReadWriteLocker.Stripe stripe = locker.stripe("key");
+        long stamp = stripe.tryOptimisticRead();
+        assertTrue(stripe.validate(stamp));
+
+        locker.writeLock("key");
+        assertEquals(0L, stripe.tryOptimisticRead());
+        locker.writeLock("key");
+        locker.unlockWrite("key");
+        assertEquals(0L, stripe.tryOptimisticRead());
+        locker.unlockWrite("key");
+
+        assertFalse(stripe.validate(stamp));
+        long next = stripe.tryOptimisticRead();
+        assertTrue(stripe.validate(next));
+        locker.readLock("key");
+        locker.unlockRead("key");
+        assertTrue(stripe.validate(next));
+    }
+
+    @Test
+    void stripesForExpandsCollectionsAndSortsDistinctStripes() {
+        StripedReadWriteLocker wide = new StripedReadWriteLocker(16);
+        int[] stripes = wide.stripesFor(3, List.of(1, 3, 2), 1);
+        assertArrayEquals(new int[]{1, 2, 3}, stripes);
+
+        wide.lockAll(stripes, true);
+        wide.lockAll(wide.stripesFor(List.of(2)), true);
+        wide.unlockAll(wide.stripesFor(List.of(2)), true);
+        wide.unlockAll(stripes, true);
+        assertFalse(wide.stripe(2).isWriteLocked());
+    }
+
+    @Test
+    void failedLockAllReleasesStripesLockedBeforeFailure() throws Exception {
+        StripedReadWriteLocker wide = new StripedReadWriteLocker(16);
+        int[] stripes = wide.stripesFor(1, 2, 3);
+        wide.readLock(3);
+        try {
+            assertThrows(IllegalStateException.class, () -> wide.lockAll(stripes, true));
+        } finally {
+            wide.unlockRead(3);
+        }
+
+        assertTrue(CompletableFuture.supplyAsync(() -> {
+            boolean locked = wide.stripe(1).writeLock().tryLock() && wide.stripe(2).writeLock().tryLock();
+            wide.stripe(2).writeLock().unlock();
+            wide.stripe(1).writeLock().unlock();
+            return locked;
+        }).get(1, TimeUnit.SECONDS));
+        assertFalse(wide.stripe(1).isWriteLocked());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
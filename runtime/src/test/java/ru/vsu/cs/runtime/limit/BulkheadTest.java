@@ -0,0 +1,59 @@
+package ru.vsu.cs.runtime.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BulkheadTest {
+
+    private final Bulkhead bulkhead = new Bulkhead(2);
+
+    @Test
+    void permitsAreLimitedUntilReleased() {
+        assertTrue(bulkhead.tryAcquire());
+        assertTrue(bulkhead.tryAcquire());
+        assertFalse(bulkhead.tryAcquire());
+
+        bulkhead.release();
+        assertEquals(1, bulkhead.availablePermits());
+        assertTrue(bulkhead.tryAcquire());
+    }
+
+    @Test
+    void waitingCallerGetsReleasedPermit() throws Exception {
+        bulkhead.tryAcquire();
+        bulkhead.tryAcquire();
+        CompletableFuture<Boolean> waiter = CompletableFuture.supplyAsync(() -> bulkhead.tryAcquire(1, TimeUnit.SECONDS));
+        Thread.sleep(50L);
+        assertFalse(waiter.isDone());
+
+        bulkhead.release();
+        assertTrue(waiter.get(1, TimeUnit.SECONDS));
+        assertEquals(0, bulkhead.availablePermits());
+    }
+
+    @Test
+    void waitTimesOut() {
+        bulkhead.tryAcquire();
+        bulkhead.tryAcquire();
+        assertFalse(bulkhead.tryAcquire(50, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void interruptedWaitFailsAndKeepsFlag() {
+        bulkhead.tryAcquire();
+        bulkhead.tryAcquire();
+        Thread.currentThread().interrupt();
+        try {
+            assertFalse(bulkhead.tryAcquire(1, TimeUnit.SECONDS));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ru.vsu.cs.runtime.limit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    /**
+     * A token every 100 ms, up to three at once.
+     */
+    private final TokenBucket bucket = new TokenBucket(3, 10L);
+
+    @Test
+    void fullBucketGivesBurstThenRejects() {
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void tokenIsRefilledAfterInterval() throws Exception {
+        drain();
+        Thread.sleep(120L);
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void waitingCallerGetsTokenWhenDue() {
+        drain();
+        long start = System.nanoTime();
+        assertTrue(bucket.tryAcquire(1, TimeUnit.SECONDS));
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(waitedMillis >= 80L && waitedMillis < 500L, () -> "waited " + waitedMillis + " ms");
+    }
+
+    @Test
+    void waitingCallersReserveConsecutiveTokens() {
+        drain();
+        long start = System.nanoTime();
+        assertTrue(bucket.tryAcquire(1, TimeUnit.SECONDS));
+        assertTrue(bucket.tryAcquire(1, TimeUnit.SECONDS));
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(waitedMillis >= 180L && waitedMillis < 600L, () -> "waited " + waitedMillis + " ms");
+    }
+
+    @Test
+    void tooShortTimeoutFailsWithoutReservingToken() {
+        drain();
+        long start = System.nanoTime();
+        assertFalse(bucket.tryAcquire(20, TimeUnit.MILLISECONDS));
+        assertFalse(bucket.tryAcquire(20, TimeUnit.MILLISECONDS));
+        assertTrue(bucket.tryAcquire(1, TimeUnit.SECONDS));
+        long waitedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(waitedMillis < 180L, () -> "waited " + waitedMillis + " ms");
+    }
+
+    @Test
+    void interruptDoesNotCancelReservedToken() {
+        drain();
+        Thread.currentThread().interrupt();
+        try {
+            assertTrue(bucket.tryAcquire(1, TimeUnit.SECONDS));
+            assertTrue(Thread.currentThread().isInterrupted());
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    private void drain() {
+        while (bucket.tryAcquire()) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.vsu.cs.runtime.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GuardMetricsRegistryTest {
+
+    @Test
+    void metricsAreRegisteredOncePerName() {
+        GuardMetrics metrics = GuardMetricsRegistry.metrics("Orders.cancel[id]");
+
+        assertSame(metrics, GuardMetricsRegistry.metrics("Orders.cancel[id]"));
+        assertTrue(GuardMetricsRegistry.all().contains(metrics));
+    }
+
+    @Test
+    void serviceLoaderListenerReceivesEvents() {
+        GuardMetrics metrics = GuardMetricsRegistry.metrics("Orders.ship[id]");
+
+        metrics.released(metrics.acquired(System.nanoTime()));
+        metrics.failed(System.nanoTime(), new TimeoutException());
+        metrics.failed(System.nanoTime(), new IllegalStateException());
+
+        assertEquals(List.of("acquired Orders.ship[id]", "released Orders.ship[id]", "timeout Orders.ship[id]", "failure Orders.ship[id]"),
+                RecordingListener.EVENTS.stream().filter(it -> it.endsWith(" Orders.ship[id]")).collect(Collectors.toList()));
+    }
+
+    @Test
+    void removedListenerIsNotCalled() {
+        GuardMetrics metrics = GuardMetricsRegistry.metrics("Orders.refund[id]");
+        RecordingListener listener = new RecordingListener();
+        GuardMetricsRegistry.addListener(listener);
+        metrics.acquired(System.nanoTime());
+        GuardMetricsRegistry.removeListener(listener);
+        metrics.acquired(System.nanoTime());
+
+        assertEquals(3L, RecordingListener.EVENTS.stream().filter("acquired Orders.refund[id]"::equals).count());
+    }
+}
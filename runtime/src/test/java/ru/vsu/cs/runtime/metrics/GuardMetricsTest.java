@@ -0,0 +1,45 @@
+package ru.vsu.cs.runtime.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GuardMetricsTest {
+
+    @Test
+    void acquisitionRecordsWaitAndHold() {
+        GuardMetrics metrics = new GuardMetrics("Accounts.withdraw[id]");
+        long holdStart = metrics.acquired(System.nanoTime());
+        metrics.released(holdStart);
+
+        assertEquals(1L, metrics.getAcquisitions());
+        assertEquals(1L, metrics.getWaitTime().count());
+        assertEquals(1L, metrics.getHoldTime().count());
+        assertEquals(0L, metrics.getTimeouts());
+        assertEquals(0L, metrics.getFailures());
+    }
+
+    @Test
+    void failureCausedByTimeoutCountsAsTimeout() {
+        GuardMetrics metrics = new GuardMetrics("Accounts.withdraw[id]");
+        metrics.failed(System.nanoTime(), new CompletionException(new TimeoutException("DAO timed out")));
+
+        assertEquals(1L, metrics.getTimeouts());
+        assertEquals(0L, metrics.getFailures());
+        assertEquals(0L, metrics.getAcquisitions());
+    }
+
+    @Test
+    void otherFailuresAreCountedSeparately() {
+        GuardMetrics metrics = new GuardMetrics("Accounts.withdraw[id]");
+        metrics.failed(System.nanoTime(), new IllegalStateException("Read lock held"));
+        metrics.failed(System.nanoTime(), new OutOfMemoryError());
+
+        assertEquals(2L, metrics.getFailures());
+        assertEquals(0L, metrics.getTimeouts());
+        assertEquals(0L, metrics.getWaitTime().count());
+    }
+}
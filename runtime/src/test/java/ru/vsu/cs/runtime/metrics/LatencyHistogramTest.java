@@ -0,0 +1,47 @@
+package ru.vsu.cs.runtime.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyHistogramTest {
+
+    @Test
+    void valuesAreCountedInBucketsOfTheirHighestBit() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos : new long[] {0L, 1L, 3L, 4L, 1000L}) {
+            histogram.record(nanos);
+        }
+
+        assertEquals(5L, histogram.count());
+        assertEquals(1008L, histogram.totalNanos());
+        assertEquals(0L, histogram.quantileUpperBoundNanos(0.2));
+        assertEquals(1L, histogram.quantileUpperBoundNanos(0.4));
+        assertEquals(3L, histogram.quantileUpperBoundNanos(0.6));
+        assertEquals(7L, histogram.quantileUpperBoundNanos(0.8));
+        assertEquals(1023L, histogram.quantileUpperBoundNanos(1.0));
+    }
+
+    @Test
+    void negativeValueIsRecordedAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5L);
+
+        assertEquals(1L, histogram.count());
+        assertEquals(0L, histogram.totalNanos());
+        assertEquals(0L, histogram.quantileUpperBoundNanos(1.0));
+    }
+
+    @Test
+    void largestValueFallsIntoTheLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(Long.MAX_VALUE, histogram.quantileUpperBoundNanos(0.5));
+    }
+
+    @Test
+    void emptyHistogramHasNoQuantile() {
+        assertEquals(0L, new LatencyHistogram().quantileUpperBoundNanos(0.99));
+    }
+}
@@ -0,0 +1,32 @@
+package ru.vsu.cs.runtime.metrics;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Listener registered through {@code META-INF/services} of the test resources.
+ */
+public class RecordingListener implements GuardMetricsListener {
+
+    static final List<String> EVENTS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void onAcquired(GuardMetrics metrics, long waitNanos) {
+        EVENTS.add("acquired " + metrics.getName());
+    }
+
+    @Override
+    public void onReleased(GuardMetrics metrics, long holdNanos) {
+        EVENTS.add("released " + metrics.getName());
+    }
+
+    @Override
+    public void onTimeout(GuardMetrics metrics, long waitNanos) {
+        EVENTS.add("timeout " + metrics.getName());
+    }
+
+    @Override
+    public void onFailure(GuardMetrics metrics, long waitNanos, Throwable error) {
+        EVENTS.add("failure " + metrics.getName());
+    }
+}
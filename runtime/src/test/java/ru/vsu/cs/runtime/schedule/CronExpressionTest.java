@@ -0,0 +1,79 @@
+package ru.vsu.cs.runtime.schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CronExpressionTest {
+
+    /**
+     * Thursday.
+     */
+    private static final ZonedDateTime OCTOBER_FIRST = time(1, 0, 0, 0);
+
+    @Test
+    void fiveFieldsStartAtZeroSecond() {
+        assertEquals(time(1, 10, 15, 0), CronExpression.parse("*/15 * * * *").next(time(1, 10, 7, 30)));
+    }
+
+    @Test
+    void sixFieldsMatchSeconds() {
+        assertEquals(time(1, 10, 0, 10), CronExpression.parse("*/10 * * * * *").next(time(1, 10, 0, 5)));
+    }
+
+    @Test
+    void nextIsStrictlyAfterGivenTime() {
+        assertEquals(time(3, 0, 0, 0), CronExpression.parse("0 0 * * *").next(time(2, 0, 0, 0)));
+    }
+
+    @Test
+    void rangesListsAndStepsAreCombined() {
+        CronExpression expression = CronExpression.parse("0 0,30 9-17/4 * * 1-5");
+        assertEquals(time(1, 13, 0, 0), expression.next(time(1, 9, 30, 0)));
+        assertEquals(time(1, 17, 30, 0), expression.next(time(1, 17, 0, 0)));
+        assertEquals(time(2, 9, 0, 0), expression.next(time(1, 17, 30, 0)));
+        assertEquals(time(5, 9, 0, 0), expression.next(time(2, 17, 30, 0)));
+    }
+
+    @Test
+    void restrictedDayOfMonthAndDayOfWeekMatchEither() {
+        CronExpression expression = CronExpression.parse("0 0 13 * 5");
+        assertEquals(time(2, 0, 0, 0), expression.next(OCTOBER_FIRST));
+        assertEquals(time(9, 0, 0, 0), expression.next(time(2, 0, 0, 0)));
+        assertEquals(time(13, 0, 0, 0), expression.next(time(10, 0, 0, 0)));
+    }
+
+    @Test
+    void unrestrictedDayFieldIsIgnored() {
+        assertEquals(time(13, 0, 0, 0), CronExpression.parse("0 0 13 * *").next(OCTOBER_FIRST));
+        assertEquals(time(2, 0, 0, 0), CronExpression.parse("0 0 ? * 5").next(OCTOBER_FIRST));
+    }
+
+    @Test
+    void sundayIsZeroOrSeven() {
+        assertEquals(time(4, 0, 0, 0), CronExpression.parse("0 0 * * 0").next(OCTOBER_FIRST));
+        assertEquals(time(4, 0, 0, 0), CronExpression.parse("0 0 * * 7").next(OCTOBER_FIRST));
+    }
+
+    @Test
+    void expressionThatNeverMatchesFails() {
+        assertThrows(IllegalStateException.class, () -> CronExpression.parse("0 0 30 2 *").next(OCTOBER_FIRST));
+    }
+
+    @Test
+    void malformedExpressionIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("* * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("60 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("5-1 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("a * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronExpression.parse("* * * * 8"));
+    }
+
+    private static ZonedDateTime time(int dayOfOctober, int hour, int minute, int second) {
+        return ZonedDateTime.of(2026, 10, dayOfOctober, hour, minute, second, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,112 @@
+package ru.vsu.cs.runtime.schedule;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelSchedulerTest {
+
+    private final Thread.UncaughtExceptionHandler defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
+
+    @AfterEach
+    void restoreHandler() {
+        Thread.setDefaultUncaughtExceptionHandler(defaultHandler);
+    }
+
+    @Test
+    void nextDeadlineFollowsInterval() {
+        assertEquals(150L, TimingWheelScheduler.nextDeadline(100L, 50L, 120L));
+    }
+
+    @Test
+    void nextDeadlineSkipsMissedRuns() {
+        assertEquals(350L, TimingWheelScheduler.nextDeadline(100L, 50L, 330L));
+    }
+
+    /**
+     * Runs are due every 40 ms from the start however late the previous run was, and with 4 buckets of 1 ms a run
+     * that ignored the remaining rounds would come 4 ms after the previous one.
+     */
+    @Test
+    void intervalLongerThanWheelWaitsFullRounds() throws Exception {
+        List<Long> runs = new CopyOnWriteArrayList<>();
+        CountDownLatch ran = new CountDownLatch(3);
+        long start;
+        try (TimingWheelScheduler scheduler = new TimingWheelScheduler(1L, 4, 1)) {
+            start = System.nanoTime();
+            scheduler.schedule(WheelTask.of("rounds", 40L, "", WheelTask.DEFAULT_START, 0L, 0, () -> {
+                runs.add(System.nanoTime());
+                ran.countDown();
+            }));
+            assertTrue(ran.await(2, TimeUnit.SECONDS));
+        }
+        for (int i = 1; i < 3; i++) {
+            long sinceStartMillis = TimeUnit.NANOSECONDS.toMillis(runs.get(i) - start);
+            long dueMillis = 40L * i;
+            assertTrue(sinceStartMillis >= dueMillis - 2L, () -> "run due at " + dueMillis + " ms came at " + sinceStartMillis + " ms");
+        }
+    }
+
+    /**
+     * The wheel thread of an empty wheel parks until a task is scheduled, which must then run on its own interval
+     * and not wait for the ticks it skipped.
+     */
+    @Test
+    void taskScheduledIntoIdleWheelRunsOnTime() throws Exception {
+        List<Long> runs = new CopyOnWriteArrayList<>();
+        CountDownLatch ran = new CountDownLatch(3);
+        try (TimingWheelScheduler scheduler = new TimingWheelScheduler(1L, 8, 1)) {
+            Thread.sleep(50L);
+            long start = System.nanoTime();
+            scheduler.schedule(WheelTask.of("idle", 20L, "", WheelTask.DEFAULT_START, 0L, 0, () -> {
+                runs.add(System.nanoTime());
+                ran.countDown();
+            }));
+            assertTrue(ran.await(2, TimeUnit.SECONDS));
+            long firstMillis = TimeUnit.NANOSECONDS.toMillis(runs.get(0) - start);
+            long thirdMillis = TimeUnit.NANOSECONDS.toMillis(runs.get(2) - start);
+            assertTrue(firstMillis < 20L, () -> "first run came at " + firstMillis + " ms");
+            assertTrue(thirdMillis >= 38L, () -> "third run due at 40 ms came at " + thirdMillis + " ms");
+        }
+    }
+
+    @Test
+    void cronTaskRunsAtMatchingSeconds() throws Exception {
+        CountDownLatch ran = new CountDownLatch(2);
+        try (TimingWheelScheduler scheduler = new TimingWheelScheduler()) {
+            scheduler.schedule(WheelTask.of("cron", 0L, "* * * * * *", WheelTask.DEFAULT_START, 0L, 0, ran::countDown));
+            assertTrue(ran.await(3, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void failingTaskDoesNotStopScheduling() throws Exception {
+        CountDownLatch failed = new CountDownLatch(3);
+        CountDownLatch othersRan = new CountDownLatch(3);
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> failed.countDown());
+        try (TimingWheelScheduler scheduler = new TimingWheelScheduler(1L, 8, 2)) {
+            scheduler.schedule(WheelTask.of("failing", 10L, "", WheelTask.DEFAULT_START, 0L, 0, () -> {
+                throw new IllegalStateException("task failed");
+            }));
+            scheduler.schedule(WheelTask.of("other", 10L, "", WheelTask.DEFAULT_START, 0L, 0, othersRan::countDown));
+            assertTrue(failed.await(2, TimeUnit.SECONDS));
+            assertTrue(othersRan.await(2, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void closedSchedulerRejectsTasks() {
+        TimingWheelScheduler scheduler = new TimingWheelScheduler(1L, 8, 1);
+        scheduler.close();
+        assertThrows(IllegalStateException.class,
+                () -> scheduler.schedule(WheelTask.of("late", 10L, "", WheelTask.DEFAULT_START, 0L, 0, () -> { })));
+    }
+}
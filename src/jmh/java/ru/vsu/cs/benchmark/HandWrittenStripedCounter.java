@@ -0,0 +1,33 @@
+package ru.vsu.cs.benchmark;
+
+import ru.vsu.cs.benchmark.fixture.StripedCounter;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Baseline with the lock written by hand around the same work as the generated proxy.
+ */
+public class HandWrittenStripedCounter extends StripedCounter {
+
+    private static final int STRIPES = 256;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public HandWrittenStripedCounter() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public long increment(String key) {
+        int hash = key.hashCode();
+        ReentrantLock lock = locks[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+        lock.lock();
+        try {
+            return super.increment(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+}
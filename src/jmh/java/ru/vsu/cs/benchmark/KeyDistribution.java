@@ -0,0 +1,49 @@
+package ru.vsu.cs.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public enum KeyDistribution {
+    UNIFORM {
+        @Override
+        double weight(int index, int keys) {
+            return 1;
+        }
+    },
+    /**
+     * One key receives 90% of the calls.
+     */
+    HOT_KEY {
+        @Override
+        double weight(int index, int keys) {
+            return index == 0 ? 9.0 * (keys - 1) : 1;
+        }
+    },
+    ZIPF {
+        @Override
+        double weight(int index, int keys) {
+            return 1 / Math.pow(index + 1, 1.1);
+        }
+    };
+
+    abstract double weight(int index, int keys);
+
+    /**
+     * Pre-generates a sequence of keys so that drawing keys costs nothing during measurement.
+     */
+    public String[] sequence(int length, int keys, long seed) {
+        double[] cumulative = new double[keys];
+        double sum = 0;
+        for (int i = 0; i < keys; i++) {
+            sum += weight(i, keys);
+            cumulative[i] = sum;
+        }
+        Random random = new Random(seed);
+        String[] sequence = new String[length];
+        for (int i = 0; i < length; i++) {
+            int index = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            sequence[i] = "key-" + Math.min(index < 0 ? -index - 1 : index, keys - 1);
+        }
+        return sequence;
+    }
+}
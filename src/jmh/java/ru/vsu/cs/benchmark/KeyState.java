@@ -0,0 +1,30 @@
+package ru.vsu.cs.benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.ThreadParams;
+
+@State(Scope.Thread)
+public class KeyState {
+
+    private static final int SEQUENCE_LENGTH = 1 << 16;
+    private static final int KEYS = 1024;
+
+    @Param({"UNIFORM", "HOT_KEY", "ZIPF"})
+    public KeyDistribution distribution;
+
+    private String[] sequence;
+    private int position;
+
+    @Setup
+    public void setUp(ThreadParams threadParams) {
+        sequence = distribution.sequence(SEQUENCE_LENGTH, KEYS, threadParams.getThreadIndex());
+    }
+
+    public String next() {
+        position = (position + 1) & (SEQUENCE_LENGTH - 1);
+        return sequence[position];
+    }
+}
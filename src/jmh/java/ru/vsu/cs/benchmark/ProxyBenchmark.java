@@ -0,0 +1,116 @@
+package ru.vsu.cs.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.vsu.cs.benchmark.fixture.AsyncCounter;
+import ru.vsu.cs.benchmark.fixture.AsyncCounterStripedLockProxy;
+import ru.vsu.cs.benchmark.fixture.PooledCounter;
+import ru.vsu.cs.benchmark.fixture.PooledCounterStripedLockProxy;
+import ru.vsu.cs.benchmark.fixture.ReadMostlyCounter;
+import ru.vsu.cs.benchmark.fixture.ReadMostlyCounterStripedLockProxy;
+import ru.vsu.cs.benchmark.fixture.SemaphoreCounter;
+import ru.vsu.cs.benchmark.fixture.SemaphoreCounterCrossSemaphoreProxy;
+import ru.vsu.cs.benchmark.fixture.StripedCounter;
+import ru.vsu.cs.benchmark.fixture.StripedCounterStripedLockProxy;
+import ru.vsu.cs.runtime.CrossSemaphoreBackends;
+import ru.vsu.cs.runtime.InMemoryCrossSemaphoreBackend;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the generated proxies against a direct call and a hand-written lock, per key distribution.
+ * The subclasses only fix the thread count. Run with {@code ./gradlew jmh}; results are written as JSON to
+ * {@code build/reports/jmh/results-<version>.json} to be compared between releases.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public abstract class ProxyBenchmark {
+
+    private StripedCounter direct;
+    private StripedCounter handWritten;
+    private StripedCounter stripedLockProxy;
+    private PooledCounter pooledProxy;
+    private ReadMostlyCounter readMostlyProxy;
+    private AsyncCounter asyncProxy;
+    private SemaphoreCounter crossSemaphoreProxy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CrossSemaphoreBackends.set(new InMemoryCrossSemaphoreBackend());
+        direct = new StripedCounter();
+        handWritten = new HandWrittenStripedCounter();
+        stripedLockProxy = new StripedCounterStripedLockProxy();
+        pooledProxy = new PooledCounterStripedLockProxy();
+        readMostlyProxy = new ReadMostlyCounterStripedLockProxy();
+        asyncProxy = new AsyncCounterStripedLockProxy();
+        crossSemaphoreProxy = new SemaphoreCounterCrossSemaphoreProxy();
+    }
+
+    @Benchmark
+    public long directCall(KeyState keys) {
+        return direct.increment(keys.next());
+    }
+
+    @Benchmark
+    public long handWrittenLock(KeyState keys) {
+        return handWritten.increment(keys.next());
+    }
+
+    @Benchmark
+    public long stripedLock(KeyState keys) {
+        return stripedLockProxy.increment(keys.next());
+    }
+
+    @Benchmark
+    public long stripedLockPooled(KeyState keys) {
+        return pooledProxy.increment(keys.next());
+    }
+
+    @Benchmark
+    public long stripedWriteLock(KeyState keys) {
+        return readMostlyProxy.increment(keys.next());
+    }
+
+    @Benchmark
+    public long stripedReadLock(KeyState keys) {
+        return readMostlyProxy.read(keys.next());
+    }
+
+    @Benchmark
+    public long stripedOptimisticRead(KeyState keys) {
+        return readMostlyProxy.readOptimistic(keys.next());
+    }
+
+    @Benchmark
+    public long stripedLockAsync(KeyState keys) {
+        return asyncProxy.increment(keys.next()).join();
+    }
+
+    @Benchmark
+    public long crossSemaphore(KeyState keys) {
+        return crossSemaphoreProxy.increment(keys.next());
+    }
+
+    @Benchmark
+    public long crossSemaphoreLeased(KeyState keys) {
+        return crossSemaphoreProxy.incrementLeased(keys.next());
+    }
+
+    @Benchmark
+    public long crossSemaphoreAsync(KeyState keys) {
+        return crossSemaphoreProxy.incrementAsync(keys.next()).join();
+    }
+}
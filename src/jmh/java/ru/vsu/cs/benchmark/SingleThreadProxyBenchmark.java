@@ -0,0 +1,7 @@
+package ru.vsu.cs.benchmark;
+
+import org.openjdk.jmh.annotations.Threads;
+
+@Threads(1)
+public class SingleThreadProxyBenchmark extends ProxyBenchmark {
+}
@@ -0,0 +1,16 @@
+package ru.vsu.cs.benchmark.fixture;
+
+import ru.cs.vsu.multithreading.annotation.StripedLock;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class AsyncCounter {
+
+    private final AtomicLong counter = new AtomicLong();
+
+    @StripedLock(lockIdentifier = "key")
+    public CompletableFuture<Long> increment(String key) {
+        return CompletableFuture.completedFuture(counter.incrementAndGet());
+    }
+}
@@ -0,0 +1,17 @@
+package ru.vsu.cs.benchmark.fixture;
+
+import ru.cs.vsu.multithreading.annotation.StripedLock;
+import ru.vsu.cs.annotation.StripedLockOptions;
+
+public class PooledCounter {
+
+    private static final int CELLS = 1024;
+
+    private final long[] cells = new long[CELLS];
+
+    @StripedLock(lockIdentifier = "key")
+    @StripedLockOptions(pool = "counters", stripes = CELLS)
+    public long increment(String key) {
+        return ++cells[key.hashCode() & (CELLS - 1)];
+    }
+}
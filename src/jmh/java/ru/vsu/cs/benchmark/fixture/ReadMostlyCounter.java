@@ -0,0 +1,30 @@
+package ru.vsu.cs.benchmark.fixture;
+
+import ru.cs.vsu.multithreading.annotation.StripedLock;
+import ru.vsu.cs.annotation.StripedLockMode;
+import ru.vsu.cs.annotation.StripedLockOptions;
+
+public class ReadMostlyCounter {
+
+    private static final int CELLS = 1024;
+
+    private final long[] cells = new long[CELLS];
+
+    @StripedLock(lockIdentifier = "key")
+    @StripedLockOptions(mode = StripedLockMode.WRITE)
+    public long increment(String key) {
+        return ++cells[key.hashCode() & (CELLS - 1)];
+    }
+
+    @StripedLock(lockIdentifier = "key")
+    @StripedLockOptions(mode = StripedLockMode.READ)
+    public long read(String key) {
+        return cells[key.hashCode() & (CELLS - 1)];
+    }
+
+    @StripedLock(lockIdentifier = "key")
+    @StripedLockOptions(mode = StripedLockMode.OPTIMISTIC_READ)
+    public long readOptimistic(String key) {
+        return cells[key.hashCode() & (CELLS - 1)];
+    }
+}
@@ -0,0 +1,28 @@
+package ru.vsu.cs.benchmark.fixture;
+
+import ru.cs.vsu.multithreading.annotation.CrossSemaphore;
+import ru.vsu.cs.annotation.CrossSemaphoreOptions;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SemaphoreCounter {
+
+    private final AtomicLong counter = new AtomicLong();
+
+    @CrossSemaphore(semophoreId = "6f1f5c1e-3a4b-4d8e-9c1a-2b7e5d4f0a11", permits = 64)
+    public long increment(String key) {
+        return counter.incrementAndGet();
+    }
+
+    @CrossSemaphore(semophoreId = "0c9d8e7f-6a5b-4c3d-8e2f-1a0b9c8d7e6f", permits = 64)
+    @CrossSemaphoreOptions(leaseSize = 16)
+    public long incrementLeased(String key) {
+        return counter.incrementAndGet();
+    }
+
+    @CrossSemaphore(semophoreId = "6f1f5c1e-3a4b-4d8e-9c1a-2b7e5d4f0a11", permits = 64)
+    public CompletableFuture<Long> incrementAsync(String key) {
+        return CompletableFuture.completedFuture(counter.incrementAndGet());
+    }
+}
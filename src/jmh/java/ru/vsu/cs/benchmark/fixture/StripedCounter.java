@@ -0,0 +1,15 @@
+package ru.vsu.cs.benchmark.fixture;
+
+import ru.cs.vsu.multithreading.annotation.StripedLock;
+
+public class StripedCounter {
+
+    private static final int CELLS = 1024;
+
+    private final long[] cells = new long[CELLS];
+
+    @StripedLock(lockIdentifier = "key")
+    public long increment(String key) {
+        return ++cells[key.hashCode() & (CELLS - 1)];
+    }
+}
@@ -0,0 +1,118 @@
+package ru.vsu.cs.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import ru.vsu.cs.annotation.Batched;
+import ru.vsu.cs.runtime.MicroBatcher;
+import ru.vsu.cs.util.Utils;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Routes the calls of the {@code @Batched} methods of one proxied class through a {@link MicroBatcher} per method
+ * and instance that calls the bulk method of the class.
+ */
+class BatchedGuards {
+
+    private final ProcessingEnvironment processingEnv;
+    private final TypeSpec.Builder builder;
+    private final TypeElement enclosingClass;
+
+    BatchedGuards(ProcessingEnvironment processingEnv, TypeSpec.Builder builder, TypeElement enclosingClass, List<ExecutableElement> methods) {
+        this.processingEnv = processingEnv;
+        this.builder = builder;
+        this.enclosingClass = enclosingClass;
+        methods.forEach(this::validateMethod);
+        for (int i = 0; i < methods.size(); i++) {
+            addBatchedMethod(methods.get(i), "microBatcherGenerated" + i);
+        }
+    }
+
+    private void addBatchedMethod(ExecutableElement method, String batcherField) {
+        Batched annotation = method.getAnnotation(Batched.class);
+        TypeName keyType = TypeName.get(method.getParameters().get(0).asType()).box();
+        TypeName valueType = TypeName.get(method.getReturnType()).box();
+        builder.addField(FieldSpec.builder(ParameterizedTypeName.get(ClassName.get(MicroBatcher.class), keyType, valueType), batcherField, Modifier.PRIVATE, Modifier.FINAL)
+                .initializer("new $T<>($L, $LL, keysGenerated -> super." + annotation.bulkMethod() + "(keysGenerated))",
+                        MicroBatcher.class, annotation.maxBatchSize(), annotation.maxDelayMillis())
+                .build());
+        builder.addMethod(MethodSpec.overriding(method)
+                .addModifiers(Modifier.PUBLIC)
+                .addStatement("return $L.load(" + method.getParameters().get(0).getSimpleName() + ")", batcherField)
+                .build());
+    }
+
+    private boolean validateMethod(ExecutableElement method) {
+        Batched annotation = method.getAnnotation(Batched.class);
+        String methodName = Utils.methodNameOf(method);
+        if (method.getParameters().size() != 1 || method.getReturnType().getKind().equals(TypeKind.VOID)
+                || method.getReturnType().getKind().isPrimitive() || !method.getTypeParameters().isEmpty()) {
+            var message = "Batched method must take one key and return a non-primitive value without type parameters " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        if (Utils.isAsyncMethod(method, processingEnv)) {
+            var message = "Batched method must not be async " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        if (annotation.maxBatchSize() < 1 || annotation.maxDelayMillis() < 0) {
+            var message = "Max batch size of @Batched must be positive and max delay must not be negative for " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        validateBulkMethod(method, annotation.bulkMethod(), methodName);
+        return true;
+    }
+
+    /**
+     * The bulk method is called with a {@code List<K>} of the batch keys and must return {@code Map<K, V>}, where
+     * {@code K} and {@code V} are the boxed parameter and return types of the single method.
+     */
+    private boolean validateBulkMethod(ExecutableElement method, String bulkName, String methodName) {
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror keyType = Utils.box(method.getParameters().get(0).asType(), processingEnv);
+        TypeMirror keysType = types.getDeclaredType(processingEnv.getElementUtils().getTypeElement(List.class.getCanonicalName()), keyType);
+        TypeMirror resultType = types.getDeclaredType(processingEnv.getElementUtils().getTypeElement(Map.class.getCanonicalName()), keyType, method.getReturnType());
+        List<ExecutableElement> candidates = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(enclosingClass)).stream()
+                .filter(it -> it.getSimpleName().contentEquals(bulkName))
+                .filter(it -> !it.getModifiers().contains(Modifier.PRIVATE) && !it.getModifiers().contains(Modifier.STATIC))
+                .filter(it -> it.getParameters().size() == 1 && types.isAssignable(keysType, it.getParameters().get(0).asType()))
+                .collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            var message = "Bulk method " + bulkName + " of @Batched must be a non-private instance method of the class taking Collection<"
+                    + keyType + "> for " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        ExecutableElement bulk = candidates.get(0);
+        if (!types.isAssignable(bulk.getReturnType(), resultType)) {
+            var message = "Bulk method " + bulkName + " of @Batched must return " + resultType + " for " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        for (TypeMirror thrownType : bulk.getThrownTypes()) {
+            if (!Utils.isUnchecked(thrownType, processingEnv) && method.getThrownTypes().stream().noneMatch(it -> types.isAssignable(thrownType, it))) {
+                var message = "Bulk method " + bulkName + " of @Batched throws " + thrownType + " not declared by " + methodName;
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+                throw new IllegalStateException(message);
+            }
+        }
+        return true;
+    }
+}
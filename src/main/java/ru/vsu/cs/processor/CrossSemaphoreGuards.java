@@ -0,0 +1,194 @@
+package ru.vsu.cs.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.TypeSpec;
+import ru.cs.vsu.multithreading.annotation.CrossSemaphore;
+import ru.vsu.cs.annotation.CrossSemaphoreOptions;
+import ru.vsu.cs.runtime.AsyncSemaphore;
+import ru.vsu.cs.runtime.CrossSemaphoreHandle;
+import ru.vsu.cs.runtime.PermitLease;
+import ru.vsu.cs.util.ProxyGuard;
+import ru.vsu.cs.util.Utils;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+/**
+ * Builds the {@code @CrossSemaphore} guards of the methods of one proxied class.
+ */
+class CrossSemaphoreGuards {
+
+    private final ProcessingEnvironment processingEnv;
+    private final TypeSpec.Builder builder;
+    private final ClassName proxyClassName;
+    private final TypeElement enclosingClass;
+    private final Map<String, ClassName> semaphoreHolders = new HashMap<>();
+    private final Map<String, CrossSemaphoreOptions> leaseOptions = new HashMap<>();
+
+    CrossSemaphoreGuards(ProcessingEnvironment processingEnv, TypeSpec.Builder builder, ClassName proxyClassName, TypeElement enclosingClass, List<ExecutableElement> methods) {
+        this.processingEnv = processingEnv;
+        this.builder = builder;
+        this.proxyClassName = proxyClassName;
+        this.enclosingClass = enclosingClass;
+        for (var method : methods) {
+            CrossSemaphore methodAnnotation = method.getAnnotation(CrossSemaphore.class);
+            CrossSemaphoreOptions options = method.getAnnotation(CrossSemaphoreOptions.class);
+            validateAnnotation(methodAnnotation, options);
+            validateSemaphoreConsistency(methods, methodAnnotation, options);
+            if (usesPermitLease(options)) {
+                leaseOptions.putIfAbsent(methodAnnotation.semophoreId(), options);
+            }
+        }
+    }
+
+    ProxyGuard guard(ExecutableElement method) {
+        ClassName holder = holderOf(method);
+        return ProxyGuard.of(acquire(method, holder), release(method, holder)).withMetrics(addMetrics(method));
+    }
+
+    UnaryOperator<CodeBlock> asyncGuard(ExecutableElement method) {
+        ClassName holder = holderOf(method);
+        CodeBlock codeBlockBefore = acquire(method, holder);
+        CodeBlock codeBlockAfter = release(method, holder);
+        CodeBlock metrics = addMetrics(method);
+        int weight = weightOf(method);
+        return call -> metrics == null
+                ? CodeBlock.of("$T.ASYNC_PERMITS.withPermit(" + weight + ", () -> $L, () -> $L, $L)", holder, codeBlockBefore, codeBlockAfter, call)
+                : CodeBlock.of("$T.ASYNC_PERMITS.withPermit(" + weight + ", () -> $L, () -> $L, $L, $L)", holder, codeBlockBefore, codeBlockAfter, metrics, call);
+    }
+
+    private CodeBlock acquire(ExecutableElement method, ClassName holder) {
+        return leaseOptions.containsKey(method.getAnnotation(CrossSemaphore.class).semophoreId())
+                ? CodeBlock.of("$T.PERMITS.acquire(" + weightOf(method) + ")", holder)
+                : CodeBlock.of("$T.SEMAPHORE.acquire()", holder);
+    }
+
+    private CodeBlock release(ExecutableElement method, ClassName holder) {
+        return leaseOptions.containsKey(method.getAnnotation(CrossSemaphore.class).semophoreId())
+                ? CodeBlock.of("$T.PERMITS.release(" + weightOf(method) + ")", holder)
+                : CodeBlock.of("$T.SEMAPHORE.release()", holder);
+    }
+
+    private ClassName holderOf(ExecutableElement method) {
+        CrossSemaphore methodAnnotation = method.getAnnotation(CrossSemaphore.class);
+        ClassName holder = semaphoreHolders.get(methodAnnotation.semophoreId());
+        if (holder == null) {
+            holder = addSemaphoreHolder(methodAnnotation, leaseOptions.get(methodAnnotation.semophoreId()));
+            semaphoreHolders.put(methodAnnotation.semophoreId(), holder);
+        }
+        return holder;
+    }
+
+    private CodeBlock addMetrics(ExecutableElement method) {
+        CrossSemaphoreOptions options = method.getAnnotation(CrossSemaphoreOptions.class);
+        if (!Utils.isInstrumentationEnabled(processingEnv) && (options == null || !options.instrumented())) {
+            return null;
+        }
+        return Utils.addGuardMetricsField(builder, enclosingClass.getQualifiedName() + "." + method.getSimpleName() + "[" + method.getAnnotation(CrossSemaphore.class).semophoreId() + "]");
+    }
+
+    private static int weightOf(ExecutableElement method) {
+        CrossSemaphoreOptions options = method.getAnnotation(CrossSemaphoreOptions.class);
+        return options == null ? 1 : options.weight();
+    }
+
+    /**
+     * Adds a lazy holder with the {@link CrossSemaphoreHandle} of the semaphore, which registers it in the backend on
+     * the first call of any method guarded by it, so that proxied calls only acquire and release. The holder does no
+     * I/O while initializing, a failed registration must not turn into {@link ExceptionInInitializerError}.
+     * Async methods additionally pass a local gate, so at most {@code permits} of their calls block in the backend.
+     * Semaphores used with a weight or a lease get a {@link PermitLease} that all their methods go through.
+     */
+    private ClassName addSemaphoreHolder(CrossSemaphore annotation, CrossSemaphoreOptions lease) {
+        String holderName = "SemaphoreHolder" + semaphoreHolders.size();
+        TypeSpec.Builder holderBuilder = TypeSpec.classBuilder(holderName)
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .addField(FieldSpec.builder(CrossSemaphoreHandle.class, "SEMAPHORE", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("new $T($T.fromString($S), " + annotation.permits() + ")", CrossSemaphoreHandle.class, UUID.class, annotation.semophoreId())
+                        .build())
+                .addField(FieldSpec.builder(AsyncSemaphore.class, "ASYNC_PERMITS", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                        .initializer("new $T(" + annotation.permits() + ")", AsyncSemaphore.class)
+                        .build());
+        if (lease != null) {
+            holderBuilder.addField(FieldSpec.builder(PermitLease.class, "PERMITS", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("new $T(SEMAPHORE, " + lease.leaseSize() + ", " + lease.leaseTimeoutMillis() + "L)", PermitLease.class)
+                    .build());
+        }
+        builder.addType(holderBuilder.build());
+        return proxyClassName.nestedClass(holderName);
+    }
+
+    private static boolean usesPermitLease(CrossSemaphoreOptions options) {
+        return options != null && (options.weight() != 1 || options.leaseSize() > 0);
+    }
+
+    private boolean validateSemaphoreConsistency(List<ExecutableElement> methods, CrossSemaphore annotation, CrossSemaphoreOptions options) {
+        boolean consistent = methods.stream()
+                .filter(it -> it.getAnnotation(CrossSemaphore.class).semophoreId().equals(annotation.semophoreId()))
+                .allMatch(it -> {
+                    CrossSemaphoreOptions otherOptions = it.getAnnotation(CrossSemaphoreOptions.class);
+                    return it.getAnnotation(CrossSemaphore.class).permits() == annotation.permits()
+                            && (options == null || otherOptions == null
+                            || otherOptions.leaseSize() == options.leaseSize() && otherOptions.leaseTimeoutMillis() == options.leaseTimeoutMillis());
+                });
+        if (!consistent) {
+            var msg = "All @CrossSemaphore methods of " + enclosingClass.getQualifiedName() + " with semaphoreId "
+                    + annotation.semophoreId() + " must declare the same permits, leaseSize and leaseTimeoutMillis";
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg);
+        }
+        return true;
+    }
+
+    private boolean validateAnnotation(CrossSemaphore annotation, CrossSemaphoreOptions options) {
+        if (annotation.permits() < 1) {
+            var msg = "Permits for @CrossSemaphore must be more than 0";
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg);
+        }
+
+        try {
+            UUID.fromString(annotation.semophoreId());
+        } catch (Exception e) {
+            var msg = "SemaphoreId for @CrossSemaphore must have uuid format";
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg, e);
+        }
+
+        if (options == null) {
+            return true;
+        }
+        if (options.weight() < 1 || options.weight() > annotation.permits()) {
+            var msg = "Weight for @CrossSemaphoreOptions must be between 1 and permits of @CrossSemaphore";
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg);
+        }
+        if (options.weight() > 1 && !Utils.isTimedCrossSemaphoreEnabled(processingEnv)) {
+            var msg = "Weight for @CrossSemaphoreOptions needs a backend with timed acquire, the cross-sync DAO only blocks;"
+                    + " install one and set -A" + Utils.TIMED_CROSS_SEMAPHORE_OPTION + "=true";
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg);
+        }
+        if (options.leaseSize() < 0 || options.leaseSize() > annotation.permits()) {
+            var msg = "LeaseSize for @CrossSemaphoreOptions must be between 0 and permits of @CrossSemaphore";
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg);
+        }
+        if (options.leaseTimeoutMillis() < 1) {
+            var msg = "LeaseTimeoutMillis for @CrossSemaphoreOptions must be more than 0";
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg);
+        }
+        return true;
+    }
+}
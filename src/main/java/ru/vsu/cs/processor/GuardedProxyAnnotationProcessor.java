@@ -0,0 +1,210 @@
+package ru.vsu.cs.processor;
+
+import com.google.auto.service.AutoService;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.TypeSpec;
+import ru.cs.vsu.multithreading.annotation.CrossSemaphore;
+import ru.cs.vsu.multithreading.annotation.StripedLock;
+import ru.vsu.cs.annotation.Batched;
+import ru.vsu.cs.annotation.LocalLimiter;
+import ru.vsu.cs.annotation.Memoized;
+import ru.vsu.cs.annotation.StripedLockOptions;
+import ru.vsu.cs.util.ProcessingModelCache;
+import ru.vsu.cs.util.ProxyGuard;
+import ru.vsu.cs.util.Utils;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.tools.Diagnostic;
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+/**
+ * Generates one proxy per class for {@code @StripedLock}, {@code @CrossSemaphore}, {@code @Memoized},
+ * {@code @LocalLimiter} and {@code @Batched} methods. Guards of a method carrying both {@code @StripedLock} and
+ * {@code @CrossSemaphore} are nested: the in-JVM striped lock is taken before the cross-node semaphore. The other
+ * annotations replace the whole method body, so a method may carry only one of them and none of the first two.
+ * <p>
+ * Proxy names stay what they were before the annotations shared one proxy:
+ * <ul>
+ *     <li>a class with {@code @StripedLock} or {@code @CrossSemaphore} gets {@code <Class>StripedLockProxy} or
+ *     {@code <Class>CrossSemaphoreProxy}, and {@code <Class>GuardedProxy} when it uses both, whether or not it also
+ *     uses the other annotations;</li>
+ *     <li>any other class gets {@code <Class>MemoizedProxy}, {@code <Class>LocalLimiterProxy} or
+ *     {@code <Class>BatchedProxy} after its only annotation, and {@code <Class>GuardedProxy} when it uses several.</li>
+ * </ul>
+ * Two cases still rename the proxy and break code that instantiates it by name: adding {@code @StripedLock} or
+ * {@code @CrossSemaphore} to a class that used only the other annotations, and combining several of the other
+ * annotations in a class that used only one of them.
+ */
+@SupportedAnnotationTypes({"ru.cs.vsu.multithreading.annotation.StripedLock", "ru.cs.vsu.multithreading.annotation.CrossSemaphore",
+        "ru.vsu.cs.annotation.Memoized", "ru.vsu.cs.annotation.LocalLimiter", "ru.vsu.cs.annotation.Batched"})
+@SupportedSourceVersion(SourceVersion.RELEASE_11)
+@SupportedOptions({Utils.INSTRUMENTATION_OPTION, Utils.TIMED_CROSS_SEMAPHORE_OPTION})
+@AutoService(Processor.class)
+public class GuardedProxyAnnotationProcessor extends AbstractProcessor {
+
+    private static final String STRIPED_LOCK_SUFFIX = "StripedLockProxy";
+    private static final String CROSS_SEMAPHORE_SUFFIX = "CrossSemaphoreProxy";
+    private static final String MEMOIZED_SUFFIX = "MemoizedProxy";
+    private static final String LOCAL_LIMITER_SUFFIX = "LocalLimiterProxy";
+    private static final String BATCHED_SUFFIX = "BatchedProxy";
+    private static final String GUARDED_SUFFIX = "GuardedProxy";
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        boolean result = true;
+        try {
+            Set<ExecutableElement> annotatedMethods = new LinkedHashSet<>();
+            for (TypeElement annotation : annotations) {
+                roundEnv.getElementsAnnotatedWith(annotation).forEach(elem -> annotatedMethods.add((ExecutableElement) elem));
+            }
+            Map<String, List<ExecutableElement>> classes2Methods = annotatedMethods.stream()
+                    .peek(elem -> ProcessingModelCache.of(processingEnv).validateForExtending(elem, processingEnv.getMessager()))
+                    .peek(this::validateCombination)
+                    .collect(Collectors.groupingBy((ExecutableElement elem) -> ((TypeElement) elem.getEnclosingElement()).getQualifiedName().toString()));
+
+            for (var entry : classes2Methods.entrySet()) {
+                TypeElement enclosingClass = (TypeElement) entry.getValue().get(0).getEnclosingElement();
+                List<ExecutableElement> stripedLockMethods = methodsWith(entry.getValue(), StripedLock.class);
+                List<ExecutableElement> crossSemaphoreMethods = methodsWith(entry.getValue(), CrossSemaphore.class);
+                List<ExecutableElement> memoizedMethods = methodsWith(entry.getValue(), Memoized.class);
+                List<ExecutableElement> localLimiterMethods = methodsWith(entry.getValue(), LocalLimiter.class);
+                List<ExecutableElement> batchedMethods = methodsWith(entry.getValue(), Batched.class);
+                if (usesRuntime(stripedLockMethods, crossSemaphoreMethods) || memoizedMethods.size() + localLimiterMethods.size() + batchedMethods.size() > 0) {
+                    Utils.requireRuntime(processingEnv, enclosingClass);
+                }
+                String packageName = enclosingClass.getQualifiedName().toString().substring(0, enclosingClass.getQualifiedName().toString().lastIndexOf("."));
+                String simpleClassName = enclosingClass.getSimpleName().toString() + proxySuffixOf(stripedLockMethods, crossSemaphoreMethods,
+                        memoizedMethods, localLimiterMethods, batchedMethods);
+                TypeSpec.Builder proxyBuilder = TypeSpec.classBuilder(simpleClassName)
+                        .addModifiers(Modifier.PUBLIC)
+                        .superclass(enclosingClass.asType());
+                Utils.addConstructors(proxyBuilder, enclosingClass, processingEnv);
+                StripedLockGuards stripedLockGuards = new StripedLockGuards(processingEnv, proxyBuilder, enclosingClass, stripedLockMethods);
+                CrossSemaphoreGuards crossSemaphoreGuards = new CrossSemaphoreGuards(processingEnv, proxyBuilder, ClassName.get(packageName, simpleClassName), enclosingClass, crossSemaphoreMethods);
+                new MemoizedGuards(processingEnv, proxyBuilder, enclosingClass, memoizedMethods);
+                new LocalLimiterGuards(processingEnv, proxyBuilder, enclosingClass, localLimiterMethods);
+                new BatchedGuards(processingEnv, proxyBuilder, enclosingClass, batchedMethods);
+                for (var method : entry.getValue()) {
+                    boolean stripedLock = method.getAnnotation(StripedLock.class) != null;
+                    boolean crossSemaphore = method.getAnnotation(CrossSemaphore.class) != null;
+                    if (!stripedLock && !crossSemaphore) {
+                        continue;
+                    }
+                    if (Utils.isAsyncMethod(method, processingEnv)) {
+                        Utils.validateAsyncMethod(method, processingEnv);
+                        List<UnaryOperator<CodeBlock>> guards = new ArrayList<>();
+                        if (stripedLock) {
+                            guards.add(stripedLockGuards.asyncGuard(method));
+                        }
+                        if (crossSemaphore) {
+                            guards.add(crossSemaphoreGuards.asyncGuard(method));
+                        }
+                        Utils.addAsyncProxyMethod(proxyBuilder, method, guards);
+                        continue;
+                    }
+                    if (stripedLock && StripedLockGuards.isOptimisticRead(method)) {
+                        validateOptimisticRead(method, crossSemaphore);
+                        stripedLockGuards.addOptimisticReadProxyMethod(method);
+                        continue;
+                    }
+                    List<ProxyGuard> guards = new ArrayList<>();
+                    if (stripedLock) {
+                        guards.add(stripedLockGuards.guard(method));
+                    }
+                    if (crossSemaphore) {
+                        guards.add(crossSemaphoreGuards.guard(method));
+                    }
+                    Utils.addProxyMethod(proxyBuilder, method, guards);
+                }
+                Utils.writeSourceFile(processingEnv, packageName, proxyBuilder, enclosingClass);
+            }
+        } catch (Throwable e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Error: " + e.getMessage());
+            throw new RuntimeException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Classes with {@code @StripedLock} or {@code @CrossSemaphore} keep the proxy name they had before the other
+     * annotations were handled here, whatever else they use. The others are named after their only annotation.
+     */
+    private static String proxySuffixOf(List<ExecutableElement> stripedLockMethods, List<ExecutableElement> crossSemaphoreMethods,
+                                        List<ExecutableElement> memoizedMethods, List<ExecutableElement> localLimiterMethods,
+                                        List<ExecutableElement> batchedMethods) {
+        if (!stripedLockMethods.isEmpty() || !crossSemaphoreMethods.isEmpty()) {
+            return crossSemaphoreMethods.isEmpty() ? STRIPED_LOCK_SUFFIX : stripedLockMethods.isEmpty() ? CROSS_SEMAPHORE_SUFFIX : GUARDED_SUFFIX;
+        }
+        Map<String, List<ExecutableElement>> suffixes2Methods = new LinkedHashMap<>();
+        suffixes2Methods.put(MEMOIZED_SUFFIX, memoizedMethods);
+        suffixes2Methods.put(LOCAL_LIMITER_SUFFIX, localLimiterMethods);
+        suffixes2Methods.put(BATCHED_SUFFIX, batchedMethods);
+        List<String> usedSuffixes = suffixes2Methods.entrySet().stream()
+                .filter(it -> !it.getValue().isEmpty())
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        return usedSuffixes.size() == 1 ? usedSuffixes.get(0) : GUARDED_SUFFIX;
+    }
+
+    private static List<ExecutableElement> methodsWith(List<ExecutableElement> methods, Class<? extends Annotation> annotation) {
+        return methods.stream()
+                .filter(it -> it.getAnnotation(annotation) != null)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * {@code @Memoized}, {@code @LocalLimiter} and {@code @Batched} each generate the whole method, so they can be
+     * combined neither with each other nor with the guards of {@code @StripedLock} and {@code @CrossSemaphore}.
+     */
+    private boolean validateCombination(ExecutableElement method) {
+        List<String> bodies = new ArrayList<>();
+        if (method.getAnnotation(StripedLock.class) != null || method.getAnnotation(CrossSemaphore.class) != null) {
+            bodies.add(method.getAnnotation(StripedLock.class) != null ? "@StripedLock" : "@CrossSemaphore");
+        }
+        if (method.getAnnotation(Memoized.class) != null) {
+            bodies.add("@Memoized");
+        }
+        if (method.getAnnotation(LocalLimiter.class) != null) {
+            bodies.add("@LocalLimiter");
+        }
+        if (method.getAnnotation(Batched.class) != null) {
+            bodies.add("@Batched");
+        }
+        if (bodies.size() > 1) {
+            var msg = String.join(" and ", bodies) + " must not be combined on one method " + Utils.methodNameOf(method);
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg);
+        }
+        return true;
+    }
+
+    /**
+     * Only blocking single-key {@code @StripedLock} methods without options lock {@code DefaultLocker} of the core
+     * library, all other guards use {@code ru.vsu.cs.runtime}.
+     */
+    private boolean usesRuntime(List<ExecutableElement> stripedLockMethods, List<ExecutableElement> crossSemaphoreMethods) {
+        return !crossSemaphoreMethods.isEmpty() || Utils.isInstrumentationEnabled(processingEnv) || stripedLockMethods.stream()
+                .anyMatch(it -> it.getAnnotation(StripedLockOptions.class) != null || Utils.isAsyncMethod(it, processingEnv));
+    }
+
+    private boolean validateOptimisticRead(ExecutableElement method, boolean crossSemaphore) {
+        if (crossSemaphore) {
+            var msg = "Mode OPTIMISTIC_READ of @StripedLockOptions must not be combined with @CrossSemaphore for "
+                    + ((TypeElement) method.getEnclosingElement()).getQualifiedName() + "." + method.getSimpleName();
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,156 @@
+package ru.vsu.cs.processor;
+
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.TypeSpec;
+import ru.vsu.cs.annotation.LocalLimiter;
+import ru.vsu.cs.annotation.LocalLimiterBehavior;
+import ru.vsu.cs.annotation.LocalLimiterKind;
+import ru.vsu.cs.runtime.limit.Bulkhead;
+import ru.vsu.cs.runtime.limit.LimitExceededException;
+import ru.vsu.cs.runtime.limit.TokenBucket;
+import ru.vsu.cs.util.Utils;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Guards the {@code @LocalLimiter} methods of one proxied class with a static {@link TokenBucket} or
+ * {@link Bulkhead} per method.
+ */
+class LocalLimiterGuards {
+
+    private final ProcessingEnvironment processingEnv;
+    private final TypeSpec.Builder builder;
+    private final TypeElement enclosingClass;
+
+    LocalLimiterGuards(ProcessingEnvironment processingEnv, TypeSpec.Builder builder, TypeElement enclosingClass, List<ExecutableElement> methods) {
+        this.processingEnv = processingEnv;
+        this.builder = builder;
+        this.enclosingClass = enclosingClass;
+        methods.forEach(this::validateAnnotation);
+        for (int i = 0; i < methods.size(); i++) {
+            addLimitedMethod(methods.get(i), "LIMITER_" + i);
+        }
+    }
+
+    private void addLimitedMethod(ExecutableElement method, String limiterField) {
+        LocalLimiter annotation = method.getAnnotation(LocalLimiter.class);
+        boolean bulkhead = annotation.kind() == LocalLimiterKind.BULKHEAD;
+        builder.addField(bulkhead
+                ? FieldSpec.builder(Bulkhead.class, limiterField, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("new $T($L)", Bulkhead.class, annotation.permits())
+                .build()
+                : FieldSpec.builder(TokenBucket.class, limiterField, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("new $T($L, $LL)", TokenBucket.class, annotation.permits(), annotation.refillPerSecond())
+                .build());
+        String args = Utils.argumentsOf(method);
+        boolean isVoid = method.getReturnType().getKind().equals(TypeKind.VOID);
+        MethodSpec.Builder methodBuilder = MethodSpec.overriding(method)
+                .addModifiers(Modifier.PUBLIC);
+        if (annotation.onLimit() == LocalLimiterBehavior.WAIT) {
+            methodBuilder.beginControlFlow("if (!$L.tryAcquire($LL, $T.MILLISECONDS))", limiterField, annotation.timeoutMillis(), TimeUnit.class);
+        } else {
+            methodBuilder.beginControlFlow("if (!$L.tryAcquire())", limiterField);
+        }
+        if (annotation.onLimit() == LocalLimiterBehavior.FALLBACK) {
+            if (isVoid) {
+                methodBuilder.addStatement(annotation.fallback() + "(" + args + ")");
+                methodBuilder.addStatement("return");
+            } else {
+                methodBuilder.addStatement("return " + annotation.fallback() + "(" + args + ")");
+            }
+        } else {
+            methodBuilder.addStatement("throw new $T($S)", LimitExceededException.class,
+                    "Limit of " + Utils.methodNameOf(method) + " is exceeded");
+        }
+        methodBuilder.endControlFlow();
+        String superCall = (isVoid ? "" : "return ") + "super." + method.getSimpleName() + "(" + args + ")";
+        if (bulkhead) {
+            methodBuilder.beginControlFlow("try");
+            methodBuilder.addStatement(superCall);
+            methodBuilder.nextControlFlow("finally");
+            methodBuilder.addStatement("$L.release()", limiterField);
+            methodBuilder.endControlFlow();
+        } else {
+            methodBuilder.addStatement(superCall);
+        }
+        builder.addMethod(methodBuilder.build());
+    }
+
+    private boolean validateAnnotation(ExecutableElement method) {
+        LocalLimiter annotation = method.getAnnotation(LocalLimiter.class);
+        String methodName = Utils.methodNameOf(method);
+        if (annotation.permits() < 1) {
+            var message = "Permits of @LocalLimiter must be positive for " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        if ((annotation.kind() == LocalLimiterKind.TOKEN_BUCKET) != (annotation.refillPerSecond() > 0)) {
+            var message = "Refill per second of @LocalLimiter must be positive for TOKEN_BUCKET and not set for BULKHEAD " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        if ((annotation.onLimit() == LocalLimiterBehavior.WAIT) != (annotation.timeoutMillis() > 0)) {
+            var message = "Timeout of @LocalLimiter must be positive for WAIT and not set otherwise " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        if ((annotation.onLimit() == LocalLimiterBehavior.FALLBACK) == annotation.fallback().isBlank()) {
+            var message = "Fallback of @LocalLimiter must be set for FALLBACK and not set otherwise " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        if (annotation.kind() == LocalLimiterKind.BULKHEAD && Utils.isAsyncMethod(method, processingEnv)) {
+            var message = "BULKHEAD of @LocalLimiter is not supported for async method " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        if (annotation.onLimit() == LocalLimiterBehavior.FALLBACK) {
+            validateFallback(method, annotation.fallback(), methodName);
+        }
+        return true;
+    }
+
+    /**
+     * The fallback is called with the arguments of the method in the proxy, so it must take the same parameters,
+     * return a compatible value, be visible to the proxy and not throw checked exceptions the method does not declare.
+     */
+    private boolean validateFallback(ExecutableElement method, String fallbackName, String methodName) {
+        Types types = processingEnv.getTypeUtils();
+        List<ExecutableElement> candidates = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(enclosingClass)).stream()
+                .filter(it -> it.getSimpleName().contentEquals(fallbackName))
+                .filter(it -> !it.getModifiers().contains(Modifier.PRIVATE))
+                .filter(it -> Utils.hasSameParameters(it, method, processingEnv))
+                .collect(Collectors.toList());
+        if (candidates.isEmpty()) {
+            var message = "Fallback " + fallbackName + " of @LocalLimiter must be a non-private method of the class with the parameters of " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        ExecutableElement fallback = candidates.get(0);
+        if (!method.getReturnType().getKind().equals(TypeKind.VOID) && !types.isAssignable(fallback.getReturnType(), method.getReturnType())) {
+            var message = "Fallback " + fallbackName + " of @LocalLimiter must return " + method.getReturnType() + " for " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        for (TypeMirror thrownType : fallback.getThrownTypes()) {
+            if (!Utils.isUnchecked(thrownType, processingEnv) && method.getThrownTypes().stream().noneMatch(it -> types.isAssignable(thrownType, it))) {
+                var message = "Fallback " + fallbackName + " of @LocalLimiter throws " + thrownType + " not declared by " + methodName;
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+                throw new IllegalStateException(message);
+            }
+        }
+        return true;
+    }
+}
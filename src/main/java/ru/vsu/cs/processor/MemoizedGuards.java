@@ -0,0 +1,117 @@
+package ru.vsu.cs.processor;
+
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.MethodSpec;
+import com.squareup.javapoet.ParameterizedTypeName;
+import com.squareup.javapoet.TypeName;
+import com.squareup.javapoet.TypeSpec;
+import com.squareup.javapoet.WildcardTypeName;
+import ru.vsu.cs.annotation.Memoized;
+import ru.vsu.cs.runtime.MemoizingCache;
+import ru.vsu.cs.util.Utils;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.tools.Diagnostic;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Overrides the {@code @Memoized} methods of one proxied class with a lookup in a {@link MemoizingCache} per method
+ * and instance, exposed by the {@code memoizingCaches()} method of the proxy.
+ */
+class MemoizedGuards {
+
+    private final ProcessingEnvironment processingEnv;
+    private final TypeSpec.Builder builder;
+
+    MemoizedGuards(ProcessingEnvironment processingEnv, TypeSpec.Builder builder, TypeElement enclosingClass, List<ExecutableElement> methods) {
+        this.processingEnv = processingEnv;
+        this.builder = builder;
+        methods.forEach(this::validateMethod);
+        if (methods.isEmpty()) {
+            return;
+        }
+        List<CodeBlock> cacheEntries = new ArrayList<>();
+        for (int i = 0; i < methods.size(); i++) {
+            ExecutableElement method = methods.get(i);
+            String cacheField = "memoizingCacheGenerated" + i;
+            addMemoizedMethod(method, cacheField);
+            cacheEntries.add(CodeBlock.of("$T.entry($S, $L)", Map.class, signatureOf(method), cacheField));
+        }
+        builder.addMethod(MethodSpec.methodBuilder("memoizingCaches")
+                .addModifiers(Modifier.PUBLIC)
+                .returns(ParameterizedTypeName.get(ClassName.get(Map.class), ClassName.get(String.class),
+                        ParameterizedTypeName.get(ClassName.get(MemoizingCache.class), WildcardTypeName.subtypeOf(Object.class))))
+                .addStatement("return $T.ofEntries($L)", Map.class, CodeBlock.join(cacheEntries, ", "))
+                .build());
+    }
+
+    /**
+     * Overrides the method with a lookup of its flight: the leader calls {@code super} and publishes the result or the
+     * exception, any other caller waits for the leader.
+     */
+    private void addMemoizedMethod(ExecutableElement method, String cacheField) {
+        Memoized annotation = method.getAnnotation(Memoized.class);
+        TypeName valueType = TypeName.get(method.getReturnType()).box();
+        builder.addField(FieldSpec.builder(ParameterizedTypeName.get(ClassName.get(MemoizingCache.class), valueType), cacheField, Modifier.PRIVATE, Modifier.FINAL)
+                .initializer("new $T<>($L, $LL)", MemoizingCache.class, annotation.maxSize(), annotation.ttlMillis())
+                .build());
+        String args = Utils.argumentsOf(method);
+        MethodSpec.Builder methodBuilder = MethodSpec.overriding(method)
+                .addModifiers(Modifier.PUBLIC);
+        methodBuilder.addStatement("$T.Flight<$T> flightGenerated = $L.flight($T.key(new Object[] {" + args + "}))",
+                MemoizingCache.class, valueType, cacheField, MemoizingCache.class);
+        methodBuilder.beginControlFlow("if (!flightGenerated.lead())");
+        methodBuilder.addStatement("return flightGenerated.await()");
+        methodBuilder.endControlFlow();
+        methodBuilder.beginControlFlow("try");
+        methodBuilder.addStatement("$T resultGenerated = super." + method.getSimpleName() + "(" + args + ")", method.getReturnType());
+        methodBuilder.addStatement("flightGenerated.complete(resultGenerated)");
+        methodBuilder.addStatement("return resultGenerated");
+        methodBuilder.nextControlFlow("catch ($T eGenerated)", Throwable.class);
+        methodBuilder.addStatement("flightGenerated.fail(eGenerated)");
+        methodBuilder.addStatement("throw eGenerated");
+        methodBuilder.endControlFlow();
+        builder.addMethod(methodBuilder.build());
+    }
+
+    private static String signatureOf(ExecutableElement method) {
+        return method.getSimpleName() + "(" + method.getParameters().stream()
+                .map(it -> it.asType().toString())
+                .collect(Collectors.joining(", ")) + ")";
+    }
+
+    private boolean validateMethod(ExecutableElement method) {
+        Memoized annotation = method.getAnnotation(Memoized.class);
+        String methodName = Utils.methodNameOf(method);
+        if (method.getReturnType().getKind().equals(TypeKind.VOID)) {
+            var message = "Memoized method must return a value " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        if (!method.getTypeParameters().isEmpty()) {
+            var message = "Memoized method must not declare type parameters " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        if (Utils.isAsyncMethod(method, processingEnv)) {
+            var message = "Memoized method must not be async, a failed future would be cached " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        if (annotation.maxSize() < 1 || annotation.ttlMillis() < 0) {
+            var message = "Max size of @Memoized must be positive and ttl must not be negative for " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        return true;
+    }
+}
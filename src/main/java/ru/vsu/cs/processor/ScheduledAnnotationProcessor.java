@@ -9,6 +9,10 @@ import ru.cs.vsu.multithreading.annotation.Scheduled;
 import ru.cs.vsu.multithreading.core.schedule.Schedulable;
 import ru.cs.vsu.multithreading.core.schedule.task.ScheduleTask;
 import ru.cs.vsu.multithreading.util.SchedulingIntersectionStrategy;
+import ru.vsu.cs.annotation.ScheduledOptions;
+import ru.vsu.cs.runtime.schedule.CronExpression;
+import ru.vsu.cs.runtime.schedule.WheelSchedulable;
+import ru.vsu.cs.runtime.schedule.WheelTask;
 import ru.vsu.cs.util.Utils;
 
 import javax.annotation.processing.*;
@@ -20,39 +24,71 @@ import javax.lang.model.element.TypeElement;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
-import javax.tools.JavaFileObject;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
 import java.io.Writer;
 import java.nio.file.Path;
 import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
 
+/**
+ * Generates a {@code Schedulable} or {@code WheelSchedulable} class per {@code @Scheduled} method and lists them in
+ * the {@code META-INF/services} registries.
+ * <p>
+ * Registered with Gradle as an aggregating processor: each registry is one file written from all {@code @Scheduled}
+ * methods of the compilation, so a change of one class must rerun the processor over the others too. Task ids are
+ * checked for uniqueness across the same set of methods.
+ */
 @SupportedAnnotationTypes({"ru.cs.vsu.multithreading.annotation.Scheduled"})
 @SupportedSourceVersion(SourceVersion.RELEASE_11)
 @AutoService(Processor.class)
 public class ScheduledAnnotationProcessor extends AbstractProcessor {
 
     private static final String SUFFIX = "ScheduledInit";
+    private static final String REGISTRY_RESOURCE = "META-INF/services/" + Schedulable.class.getName();
+    private static final String WHEEL_REGISTRY_RESOURCE = "META-INF/services/" + WheelSchedulable.class.getName();
 
+    private final Map<String, String> taskIds2Methods = new HashMap<>();
+    private final Map<String, TypeElement> schedulables = new TreeMap<>();
+    private final Map<String, TypeElement> wheelSchedulables = new TreeMap<>();
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
         boolean result = true;
         try {
+            if (roundEnv.processingOver()) {
+                writeRegistry(REGISTRY_RESOURCE, schedulables);
+                writeRegistry(WHEEL_REGISTRY_RESOURCE, wheelSchedulables);
+                return result;
+            }
             for (TypeElement annotation : annotations) {
                 Set<? extends Element> annotatedElements = roundEnv.getElementsAnnotatedWith(annotation);
                 for (Element method : annotatedElements) {
-                    processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "ScheduledAnnotationProcessor is working");
                     result = validateMethod((ExecutableElement) method);
                     Scheduled methodAnnotation = method.getAnnotation(Scheduled.class);
-                    result = validateAnnotation(methodAnnotation, (ExecutableElement) method);
+                    ScheduledOptions options = method.getAnnotation(ScheduledOptions.class);
+                    result = validateAnnotation(methodAnnotation, options, (ExecutableElement) method);
+                    result = validateTaskIdUniqueness(methodAnnotation, (ExecutableElement) method);
                     TypeElement enclosingClass = (TypeElement) method.getEnclosingElement();
                     String packageName = enclosingClass.getQualifiedName().toString().substring(0, enclosingClass.getQualifiedName().toString().lastIndexOf("."));
                     String simpleClassName = enclosingClass.getSimpleName().toString()
                             + Utils.replaceFirstToUpper(method.getSimpleName().toString()) +
                             SUFFIX;
+                    if (options != null && options.timingWheel()) {
+                        writeWheelSchedulable(methodAnnotation, options, (ExecutableElement) method, packageName, simpleClassName);
+                        continue;
+                    }
                     TypeSpec schedulable = TypeSpec.classBuilder(simpleClassName)
                             .addModifiers(Modifier.PUBLIC)
+                            .addOriginatingElement(enclosingClass)
                             .addSuperinterface(Schedulable.class)
                             .addMethod(MethodSpec.methodBuilder("initScheduleTask")
                                     .returns(ScheduleTask.class)
@@ -65,11 +101,8 @@ public class ScheduledAnnotationProcessor extends AbstractProcessor {
                             .addStaticImport(SchedulingIntersectionStrategy.class, methodAnnotation.strategy().toString())
                             .indent("    ")
                             .build();
-                    JavaFileObject jfo = processingEnv.getFiler().createSourceFile(packageName + "." + simpleClassName);
-                    Writer writer = jfo.openWriter();
-                    writer.append(javaFile.toString());
-                    writer.flush();
-                    writer.close();
+                    javaFile.writeTo(processingEnv.getFiler());
+                    schedulables.put(packageName + "." + simpleClassName, enclosingClass);
                 }
             }
         } catch (Throwable e) {
@@ -79,6 +112,59 @@ public class ScheduledAnnotationProcessor extends AbstractProcessor {
         return result;
     }
 
+    /**
+     * Timing wheel mode: the task is created by {@link WheelTask#of} and run by
+     * {@code ru.vsu.cs.runtime.schedule.TimingWheelScheduler}. Other strategies than {@code PUT_TO_QUEUE} skip
+     * overlapping runs.
+     */
+    private void writeWheelSchedulable(Scheduled annotation, ScheduledOptions options, ExecutableElement method,
+                                       String packageName, String simpleClassName) throws IOException {
+        TypeElement enclosingClass = (TypeElement) method.getEnclosingElement();
+        Utils.requireRuntime(processingEnv, enclosingClass);
+        int maxQueued = annotation.strategy().equals(SchedulingIntersectionStrategy.PUT_TO_QUEUE) ? annotation.queueSize() : 0;
+        TypeSpec.Builder schedulable = TypeSpec.classBuilder(simpleClassName)
+                .addModifiers(Modifier.PUBLIC)
+                .addSuperinterface(WheelSchedulable.class)
+                .addMethod(MethodSpec.methodBuilder("initWheelTask")
+                        .returns(WheelTask.class)
+                        .addModifiers(Modifier.PUBLIC)
+                        .addStatement("return $T.of($S, $LL, $S, $S, $LL, $L, () -> $T.$L())", WheelTask.class, annotation.id(),
+                                annotation.interval(), options.cron(), annotation.start(), options.jitterMillis(), maxQueued,
+                                enclosingClass, method.getSimpleName())
+                        .build());
+        Utils.writeSourceFile(processingEnv, packageName, schedulable, enclosingClass);
+        wheelSchedulables.put(packageName + "." + simpleClassName, enclosingClass);
+    }
+
+    /**
+     * Lists every generated schedulable of the compilation as a service, so that a scheduler can load all
+     * tasks with {@link java.util.ServiceLoader} instead of scanning the classpath.
+     */
+    private void writeRegistry(String resourceName, Map<String, TypeElement> schedulables) throws IOException {
+        if (schedulables.isEmpty()) {
+            return;
+        }
+        FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", resourceName,
+                schedulables.values().stream().distinct().toArray(Element[]::new));
+        Writer writer = resource.openWriter();
+        for (String schedulable : schedulables.keySet()) {
+            writer.append(schedulable).append("\n");
+        }
+        writer.flush();
+        writer.close();
+    }
+
+    private boolean validateTaskIdUniqueness(Scheduled annotation, ExecutableElement methodElement) {
+        String method = ((TypeElement) methodElement.getEnclosingElement()).getQualifiedName() + "." + methodElement.getSimpleName();
+        String previous = taskIds2Methods.putIfAbsent(annotation.id(), method);
+        if (previous != null && !previous.equals(method)) {
+            var message = "Scheduled task id " + annotation.id() + " of " + method + " is already used by " + previous;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, methodElement);
+            throw new IllegalStateException(message);
+        }
+        return true;
+    }
+
     private boolean validateMethod(ExecutableElement methodElement) {
         if (!methodElement.getParameters().isEmpty()) {
             var message = "Scheduled method "
@@ -106,13 +192,17 @@ public class ScheduledAnnotationProcessor extends AbstractProcessor {
         return true;
     }
 
-    private boolean validateAnnotation(Scheduled annotation, ExecutableElement methodElement) {
-        if (annotation.interval() <= 100) {
+    private boolean validateAnnotation(Scheduled annotation, ScheduledOptions options, ExecutableElement methodElement) {
+        boolean timingWheel = options != null && options.timingWheel();
+        if (!timingWheel && annotation.interval() <= 100) {
             var message = "Interval between task runs must be much than 100ms for " + ((TypeElement) methodElement.getEnclosingElement()).getQualifiedName()
                     + "." + methodElement.getSimpleName();
             processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
             throw new IllegalStateException(message);
         }
+        if (options != null) {
+            validateOptions(annotation, options, methodElement);
+        }
         if (annotation.strategy().equals(SchedulingIntersectionStrategy.PUT_TO_QUEUE) && annotation.queueSize() < 1) {
             var message = "Queue size for scheduled task with type 'PUT_TO_QUEUE' must be positive" + ((TypeElement) methodElement.getEnclosingElement()).getQualifiedName()
                     + "." + methodElement.getSimpleName();
@@ -128,7 +218,7 @@ public class ScheduledAnnotationProcessor extends AbstractProcessor {
         }
         if (!"DEFAULT".equals(annotation.start())) {
             try {
-                (new SimpleDateFormat("dd-MM-yyyyTHH:mm:ss")).parse(annotation.start());
+                (new SimpleDateFormat("dd-MM-yyyy'T'HH:mm:ss")).parse(annotation.start());
             } catch (Exception e) {
                 processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Invalid startTime for " + ((TypeElement) methodElement.getEnclosingElement()).getQualifiedName()
                         + "." + methodElement.getSimpleName());
@@ -137,4 +227,43 @@ public class ScheduledAnnotationProcessor extends AbstractProcessor {
         }
         return true;
     }
+
+    private boolean validateOptions(Scheduled annotation, ScheduledOptions options, ExecutableElement methodElement) {
+        String methodName = ((TypeElement) methodElement.getEnclosingElement()).getQualifiedName() + "." + methodElement.getSimpleName();
+        if (!options.timingWheel() && (!options.cron().isEmpty() || options.jitterMillis() != 0)) {
+            var message = "Cron and jitter of @ScheduledOptions require timing wheel mode for " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        if (options.timingWheel() && options.cron().isEmpty() && annotation.interval() < 1) {
+            var message = "Interval between task runs must be positive in timing wheel mode for " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        if (options.jitterMillis() < 0) {
+            var message = "Jitter of @ScheduledOptions must not be negative for " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+            throw new IllegalStateException(message);
+        }
+        if (options.timingWheel() && !"DEFAULT".equals(annotation.start())) {
+            try {
+                LocalDateTime.parse(annotation.start(), WheelTask.START_FORMAT);
+            } catch (DateTimeParseException e) {
+                var message = "Invalid startTime for " + methodName + ", expected " + WheelTask.START_FORMAT;
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+                throw new IllegalStateException(message);
+            }
+        }
+        if (!options.cron().isEmpty()) {
+            try {
+                // a well-formed expression may still never match, like 0 0 30 2 *, which would fail only when scheduled
+                CronExpression.parse(options.cron()).next(ZonedDateTime.now());
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                var message = "Invalid cron of @ScheduledOptions for " + methodName + ": " + e.getMessage();
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+                throw new IllegalStateException(message);
+            }
+        }
+        return true;
+    }
 }
@@ -0,0 +1,357 @@
+package ru.vsu.cs.processor;
+
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.TypeSpec;
+import ru.cs.vsu.multithreading.annotation.StripedLock;
+import ru.cs.vsu.multithreading.core.stripedlock.DefaultLocker;
+import ru.vsu.cs.annotation.StripedLockMode;
+import ru.vsu.cs.annotation.StripedLockOptions;
+import ru.vsu.cs.runtime.AsyncKeyedMutex;
+import ru.vsu.cs.runtime.StripedReadWriteLocker;
+import ru.vsu.cs.util.ProxyGuard;
+import ru.vsu.cs.util.Utils;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the {@code @StripedLock} guards of the methods of one proxied class.
+ */
+class StripedLockGuards {
+
+    private static final Pattern SIMPLE_EXPRESSION = Pattern.compile("[\\w$]+(\\(\\))?(\\.[\\w$]+(\\(\\))?)*");
+
+    private final ProcessingEnvironment processingEnv;
+    private final TypeSpec.Builder builder;
+    private final TypeElement enclosingClass;
+    private final Map<String, Integer> pools2Stripes = new HashMap<>();
+    private final Set<String> addedPools = new HashSet<>();
+
+    StripedLockGuards(ProcessingEnvironment processingEnv, TypeSpec.Builder builder, TypeElement enclosingClass, List<ExecutableElement> methods) {
+        this.processingEnv = processingEnv;
+        this.builder = builder;
+        this.enclosingClass = enclosingClass;
+        validateAsyncKeys(methods);
+        methods.forEach(this::warnOnUntypedKey);
+        validateKeyModes(methods);
+        methods.forEach(it -> validateAnnotation(it, modeOf(it)));
+        methods.forEach(this::validatePool);
+    }
+
+    static boolean isOptimisticRead(ExecutableElement method) {
+        return modeOf(method) == StripedLockMode.OPTIMISTIC_READ;
+    }
+
+    ProxyGuard guard(ExecutableElement method) {
+        StripedLock methodAnnotation = method.getAnnotation(StripedLock.class);
+        StripedLockMode mode = modeOf(method);
+        CodeBlock metrics = addMetrics(method);
+        CodeBlock locker = addLocker(method);
+        if (isMultiKey(method)) {
+            boolean write = mode != StripedLockMode.READ;
+            return ProxyGuard.of(
+                    CodeBlock.of("int[] lockStripesGenerated = $L.stripesFor(" + String.join(", ", keysOf(method)) + ")", locker),
+                    CodeBlock.of("$L.lockAll(lockStripesGenerated, " + write + ")", locker),
+                    CodeBlock.of("$L.unlockAll(lockStripesGenerated, " + write + ")", locker))
+                    .withMetrics(metrics);
+        }
+        CodeBlock codeBlockBefore;
+        CodeBlock codeBlockAfter;
+        if (mode == StripedLockMode.READ) {
+            codeBlockBefore = CodeBlock.of("$L.readLock(" + methodAnnotation.lockIdentifier() + ")", locker);
+            codeBlockAfter = CodeBlock.of("$L.unlockRead(" + methodAnnotation.lockIdentifier() + ")", locker);
+        } else if (mode == StripedLockMode.WRITE || poolOf(method) != null) {
+            codeBlockBefore = CodeBlock.of("$L.writeLock(" + methodAnnotation.lockIdentifier() + ")", locker);
+            codeBlockAfter = CodeBlock.of("$L.unlockWrite(" + methodAnnotation.lockIdentifier() + ")", locker);
+        } else {
+            codeBlockBefore = CodeBlock.of("$T.getInstance().lock(" + methodAnnotation.lockIdentifier() + ")", DefaultLocker.class);
+            codeBlockAfter = CodeBlock.of("$T.getInstance().unlock(" + methodAnnotation.lockIdentifier() + ")", DefaultLocker.class);
+        }
+        return ProxyGuard.of(codeBlockBefore, codeBlockAfter).withMetrics(metrics);
+    }
+
+    UnaryOperator<CodeBlock> asyncGuard(ExecutableElement method) {
+        StripedLock methodAnnotation = method.getAnnotation(StripedLock.class);
+        CodeBlock metrics = addMetrics(method);
+        return call -> metrics == null
+                ? CodeBlock.of("$T.getInstance().withLock(" + methodAnnotation.lockIdentifier() + ", $L)", AsyncKeyedMutex.class, call)
+                : CodeBlock.of("$T.getInstance().withLock(" + methodAnnotation.lockIdentifier() + ", $L, $L)", AsyncKeyedMutex.class, metrics, call);
+    }
+
+    TypeSpec.Builder addOptimisticReadProxyMethod(ExecutableElement method) {
+        StripedLock methodAnnotation = method.getAnnotation(StripedLock.class);
+        return Utils.addOptimisticReadProxyMethod(builder, method, CodeBlock.of("$L.stripe(" + methodAnnotation.lockIdentifier() + ")", addLocker(method)), addMetrics(method));
+    }
+
+    /**
+     * Returns the shared {@link StripedReadWriteLocker} or the static locker of the pool of the method, added on first
+     * use.
+     */
+    private CodeBlock addLocker(ExecutableElement method) {
+        String pool = poolOf(method);
+        if (pool == null) {
+            return CodeBlock.of("$T.getInstance()", StripedReadWriteLocker.class);
+        }
+        String fieldName = "STRIPED_LOCK_POOL_" + pool;
+        if (addedPools.add(pool)) {
+            builder.addField(FieldSpec.builder(StripedReadWriteLocker.class, fieldName, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                    .initializer("new $T($L)", StripedReadWriteLocker.class, pools2Stripes.getOrDefault(pool, StripedReadWriteLocker.DEFAULT_STRIPES))
+                    .build());
+        }
+        return CodeBlock.of("$L", fieldName);
+    }
+
+    private CodeBlock addMetrics(ExecutableElement method) {
+        StripedLockOptions options = method.getAnnotation(StripedLockOptions.class);
+        if (!Utils.isInstrumentationEnabled(processingEnv) && (options == null || !options.instrumented())) {
+            return null;
+        }
+        return Utils.addGuardMetricsField(builder, enclosingClass.getQualifiedName() + "." + method.getSimpleName() + "[" + String.join(", ", keysOf(method)) + "]");
+    }
+
+    private static StripedLockMode modeOf(ExecutableElement method) {
+        StripedLockOptions options = method.getAnnotation(StripedLockOptions.class);
+        return options == null ? StripedLockMode.EXCLUSIVE : options.mode();
+    }
+
+    /**
+     * Methods with further keys or with a {@link Collection}-typed {@code lockIdentifier} lock the stripes of all keys
+     * and collection elements through {@link StripedReadWriteLocker#stripesFor}.
+     */
+    private boolean isMultiKey(ExecutableElement method) {
+        StripedLockOptions options = method.getAnnotation(StripedLockOptions.class);
+        return options != null && options.keys().length > 0 || isCollectionExpression(method, method.getAnnotation(StripedLock.class).lockIdentifier());
+    }
+
+    private boolean isCollectionExpression(ExecutableElement method, String expression) {
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror collection = types.erasure(processingEnv.getElementUtils().getTypeElement(Collection.class.getCanonicalName()).asType());
+        TypeMirror type = typeOf(method, expression.strip());
+        return type != null && types.isAssignable(types.erasure(type), collection);
+    }
+
+    /**
+     * Returns the static type of a {@code lockIdentifier} made of a parameter, field or no-argument method of the class
+     * followed by fields and no-argument methods, e.g. {@code order.getItemIds()}, or {@code null} for other expressions.
+     */
+    private TypeMirror typeOf(ExecutableElement method, String expression) {
+        if (!SIMPLE_EXPRESSION.matcher(expression).matches()) {
+            return null;
+        }
+        String[] segments = expression.split("\\.");
+        String first = segments[0];
+        TypeMirror current;
+        if ("this".equals(first)) {
+            current = enclosingClass.asType();
+        } else {
+            current = first.endsWith("()") ? null : method.getParameters().stream()
+                    .filter(it -> it.getSimpleName().contentEquals(first))
+                    .map(VariableElement::asType)
+                    .findFirst()
+                    .orElse(null);
+            if (current == null) {
+                current = memberTypeOf(enclosingClass.asType(), first);
+            }
+        }
+        for (int i = 1; i < segments.length && current != null; i++) {
+            current = memberTypeOf(current, segments[i]);
+        }
+        return current;
+    }
+
+    private TypeMirror memberTypeOf(TypeMirror owner, String segment) {
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror declared = owner.getKind() == TypeKind.TYPEVAR ? types.erasure(owner) : owner;
+        if (declared.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        boolean call = segment.endsWith("()");
+        String name = call ? segment.substring(0, segment.length() - 2) : segment;
+        for (Element member : processingEnv.getElementUtils().getAllMembers((TypeElement) types.asElement(declared))) {
+            if (!member.getSimpleName().contentEquals(name)) {
+                continue;
+            }
+            if (call && member.getKind() == ElementKind.METHOD && ((ExecutableElement) member).getParameters().isEmpty()) {
+                return ((ExecutableType) types.asMemberOf((DeclaredType) declared, member)).getReturnType();
+            }
+            if (!call && member.getKind() == ElementKind.FIELD) {
+                return types.asMemberOf((DeclaredType) declared, member);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Expressions the processor cannot type are locked as one key, which is wrong for a collection, so they are
+     * reported; collections must be passed as a parameter, field or accessor chain to be expanded.
+     */
+    private boolean warnOnUntypedKey(ExecutableElement method) {
+        String expression = method.getAnnotation(StripedLock.class).lockIdentifier().strip();
+        if (!expression.isEmpty() && typeOf(method, expression) == null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING, "Type of @StripedLock key " + expression + " of "
+                    + enclosingClass.getQualifiedName() + "." + method.getSimpleName()
+                    + " is not resolved, it is locked as one key even if it evaluates to a collection", method);
+        }
+        return true;
+    }
+
+    private static List<String> keysOf(ExecutableElement method) {
+        List<String> keys = new ArrayList<>();
+        keys.add(method.getAnnotation(StripedLock.class).lockIdentifier());
+        StripedLockOptions options = method.getAnnotation(StripedLockOptions.class);
+        if (options != null) {
+            keys.addAll(Arrays.asList(options.keys()));
+        }
+        return keys;
+    }
+
+    private static String poolOf(ExecutableElement method) {
+        StripedLockOptions options = method.getAnnotation(StripedLockOptions.class);
+        return options == null || options.pool().isEmpty() ? null : options.pool();
+    }
+
+    /**
+     * Names the locker guarding the keys of the method: {@link DefaultLocker}, the shared {@link StripedReadWriteLocker}
+     * or the locker of a pool.
+     */
+    private String lockerOf(ExecutableElement method) {
+        if (poolOf(method) != null) {
+            return "pool " + poolOf(method);
+        }
+        return modeOf(method) == StripedLockMode.EXCLUSIVE && !isMultiKey(method) ? "DefaultLocker" : "StripedReadWriteLocker";
+    }
+
+    private boolean validateAnnotation(ExecutableElement method, StripedLockMode mode) {
+        if (keysOf(method).stream().anyMatch(String::isBlank)) {
+            var msg = "Keys of @StripedLock must not be blank for "
+                    + ((TypeElement) method.getEnclosingElement()).getQualifiedName() + "." + method.getSimpleName();
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg);
+        }
+        if (isMultiKey(method) && (mode == StripedLockMode.OPTIMISTIC_READ || Utils.isAsyncMethod(method, processingEnv))) {
+            var msg = "Several keys or a collection key of @StripedLock are supported neither for OPTIMISTIC_READ nor for async method "
+                    + ((TypeElement) method.getEnclosingElement()).getQualifiedName() + "." + method.getSimpleName();
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg);
+        }
+        if (mode != StripedLockMode.EXCLUSIVE && Utils.isAsyncMethod(method, processingEnv)) {
+            var msg = "Mode " + mode + " of @StripedLockOptions is not supported for async method "
+                    + ((TypeElement) method.getEnclosingElement()).getQualifiedName() + "." + method.getSimpleName();
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg);
+        }
+        if (mode == StripedLockMode.OPTIMISTIC_READ && method.getReturnType().getKind().equals(TypeKind.VOID)) {
+            var msg = "Mode OPTIMISTIC_READ of @StripedLockOptions requires a return value for "
+                    + ((TypeElement) method.getEnclosingElement()).getQualifiedName() + "." + method.getSimpleName();
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg);
+        }
+        return true;
+    }
+
+    /**
+     * Single-key EXCLUSIVE locks {@link DefaultLocker}, the other modes and multi-key methods lock
+     * {@link StripedReadWriteLocker} and methods of a pool lock its own locker, so a key used with two of them
+     * would not be guarded against itself.
+     */
+    private boolean validateKeyModes(List<ExecutableElement> methods) {
+        Map<String, Set<String>> keys2Lockers = methods.stream()
+                .flatMap(it -> keysOf(it).stream().map(key -> Map.entry(key, lockerOf(it))))
+                .collect(Collectors.groupingBy(Map.Entry::getKey, Collectors.mapping(Map.Entry::getValue, Collectors.toCollection(TreeSet::new))));
+        for (var entry : keys2Lockers.entrySet()) {
+            if (entry.getValue().size() > 1) {
+                var msg = "@StripedLock key " + entry.getKey() + " of " + enclosingClass.getQualifiedName()
+                        + " must not be guarded by different lockers " + entry.getValue()
+                        + ": single-key EXCLUSIVE methods use DefaultLocker, other modes and multi-key methods use StripedReadWriteLocker, pooled methods use their pool";
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+                throw new IllegalStateException(msg);
+            }
+        }
+        return true;
+    }
+
+    private boolean validatePool(ExecutableElement method) {
+        StripedLockOptions options = method.getAnnotation(StripedLockOptions.class);
+        if (options == null) {
+            return true;
+        }
+        String methodName = enclosingClass.getQualifiedName() + "." + method.getSimpleName();
+        if (options.pool().isEmpty()) {
+            if (options.stripes() != 0) {
+                var msg = "Stripes of @StripedLockOptions require a pool for " + methodName;
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+                throw new IllegalStateException(msg);
+            }
+            return true;
+        }
+        if (!SourceVersion.isName(options.pool()) || options.pool().contains(".")) {
+            var msg = "Pool of @StripedLockOptions must be a Java identifier for " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg);
+        }
+        if (options.stripes() < 0 || options.stripes() > 1 << 30) {
+            var msg = "Stripes of @StripedLockOptions must be from 1 to 2^30 for " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg);
+        }
+        if (Utils.isAsyncMethod(method, processingEnv)) {
+            var msg = "Pool of @StripedLockOptions is not supported for async method " + methodName;
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+            throw new IllegalStateException(msg);
+        }
+        if (options.stripes() != 0) {
+            Integer previous = pools2Stripes.putIfAbsent(options.pool(), options.stripes());
+            if (previous != null && previous != options.stripes()) {
+                var msg = "Pool " + options.pool() + " of " + enclosingClass.getQualifiedName() + " is declared with both "
+                        + previous + " and " + options.stripes() + " stripes";
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+                throw new IllegalStateException(msg);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Async methods are guarded by {@link AsyncKeyedMutex}, which does not exclude the blocking
+     * lockers used by synchronous methods, so sharing a key between them is rejected.
+     */
+    private boolean validateAsyncKeys(List<ExecutableElement> methods) {
+        Map<Boolean, Set<String>> keysByAsync = methods.stream()
+                .collect(Collectors.partitioningBy(it -> Utils.isAsyncMethod(it, processingEnv),
+                        Collectors.flatMapping(it -> keysOf(it).stream(), Collectors.toCollection(TreeSet::new))));
+        for (String key : keysByAsync.get(true)) {
+            if (keysByAsync.get(false).contains(key)) {
+                var msg = "@StripedLock key " + key + " of " + enclosingClass.getQualifiedName()
+                        + " must not be used by both async and blocking methods, which do not exclude each other";
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, msg);
+                throw new IllegalStateException(msg);
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,56 @@
+package ru.vsu.cs.util;
+
+import com.squareup.javapoet.MethodSpec;
+
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Elements;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Data about proxied classes shared by all processors of this library and all rounds of one compilation: constructors
+ * of a class are converted once and a method is validated for overriding once. Only JavaPoet specs and names are
+ * kept, never elements or types of the compiler, which must not outlive their round.
+ * <p>
+ * Caches are keyed by {@link Elements} because build tools such as Gradle wrap the {@link ProcessingEnvironment}
+ * per processor, while the element utilities stay the ones of the compilation.
+ */
+public final class ProcessingModelCache {
+
+    private static final Map<Elements, ProcessingModelCache> CACHES = new WeakHashMap<>();
+
+    private final Map<String, List<MethodSpec>> constructors = new ConcurrentHashMap<>();
+    private final Set<String> validatedMethods = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The cache must not reference the environment, which would keep its weak key reachable.
+     */
+    public static synchronized ProcessingModelCache of(ProcessingEnvironment processingEnv) {
+        return CACHES.computeIfAbsent(processingEnv.getElementUtils(), elements -> new ProcessingModelCache());
+    }
+
+    public List<MethodSpec> constructorsOf(TypeElement type) {
+        return constructors.computeIfAbsent(type.getQualifiedName().toString(), name -> type.getEnclosedElements().stream()
+                .filter(elem -> elem.getKind().equals(ElementKind.CONSTRUCTOR))
+                .map(elem -> Utils.constructorOf((ExecutableElement) elem))
+                .collect(Collectors.toUnmodifiableList()));
+    }
+
+    public boolean validateForExtending(ExecutableElement method, Messager messager) {
+        String key = ((TypeElement) method.getEnclosingElement()).getQualifiedName() + "#" + method;
+        if (validatedMethods.contains(key)) {
+            return true;
+        }
+        Utils.validateMethodForExtending(method, messager);
+        validatedMethods.add(key);
+        return true;
+    }
+}
@@ -0,0 +1,50 @@
+package ru.vsu.cs.util;
+
+import com.squareup.javapoet.CodeBlock;
+
+/**
+ * Code a proxy method runs around the super call: the optional prologue declares locals shared by acquire and
+ * release, acquire runs before the {@code try} block and release runs in its {@code finally}.
+ */
+public class ProxyGuard {
+
+    private final CodeBlock prologue;
+    private final CodeBlock acquire;
+    private final CodeBlock release;
+    private final CodeBlock metrics;
+
+    private ProxyGuard(CodeBlock prologue, CodeBlock acquire, CodeBlock release, CodeBlock metrics) {
+        this.prologue = prologue;
+        this.acquire = acquire;
+        this.release = release;
+        this.metrics = metrics;
+    }
+
+    public static ProxyGuard of(CodeBlock acquire, CodeBlock release) {
+        return new ProxyGuard(null, acquire, release, null);
+    }
+
+    public static ProxyGuard of(CodeBlock prologue, CodeBlock acquire, CodeBlock release) {
+        return new ProxyGuard(prologue, acquire, release, null);
+    }
+
+    public ProxyGuard withMetrics(CodeBlock metrics) {
+        return new ProxyGuard(prologue, acquire, release, metrics);
+    }
+
+    public CodeBlock getPrologue() {
+        return prologue;
+    }
+
+    public CodeBlock getAcquire() {
+        return acquire;
+    }
+
+    public CodeBlock getRelease() {
+        return release;
+    }
+
+    public CodeBlock getMetrics() {
+        return metrics;
+    }
+}
@@ -1,20 +1,37 @@
 package ru.vsu.cs.util;
 
 import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
+import com.squareup.javapoet.JavaFile;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterSpec;
 import com.squareup.javapoet.TypeSpec;
+import ru.vsu.cs.runtime.metrics.GuardMetrics;
+import ru.vsu.cs.runtime.metrics.GuardMetricsRegistry;
 
 import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.PrimitiveType;
 import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 public class Utils {
 
+    public static final String INSTRUMENTATION_OPTION = "ru.vsu.cs.instrumentation";
+    public static final String TIMED_CROSS_SEMAPHORE_OPTION = "ru.vsu.cs.crossSemaphore.timedAcquire";
+    public static final String RUNTIME_ARTIFACT = "ru.vsu.cs:diplom-annotation-processor-runtime";
+
     public static String replaceFirstToUpper(String source) {
         var first = source.substring(0, 1);
         var res = source.substring(1);
@@ -57,33 +74,253 @@ public class Utils {
         return true;
     }
 
+    /**
+     * Code generated for {@code proxiedClass} refers to {@code ru.vsu.cs.runtime}, which is shipped as
+     * {@link #RUNTIME_ARTIFACT} and must be a regular dependency of the compiled project: the copy loaded with the
+     * processor is visible neither to the compiled sources nor to the application at run time.
+     */
+    public static boolean requireRuntime(ProcessingEnvironment processingEnv, TypeElement proxiedClass) {
+        if (processingEnv.getElementUtils().getTypeElement(GuardMetrics.class.getCanonicalName()) == null) {
+            var message = "Generated code of " + proxiedClass.getQualifiedName() + " requires " + RUNTIME_ARTIFACT
+                    + " as an implementation dependency next to the annotation processor";
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, proxiedClass);
+            throw new IllegalStateException(message);
+        }
+        return true;
+    }
+
     public static TypeSpec.Builder addConstructor(TypeSpec.Builder builder, ExecutableElement constructorElement) {
+        builder.addMethod(constructorOf(constructorElement));
+        return builder;
+    }
+
+    /**
+     * Adds a constructor delegating to each constructor of {@code superclass}, taken from {@link ProcessingModelCache}.
+     */
+    public static TypeSpec.Builder addConstructors(TypeSpec.Builder builder, TypeElement superclass, ProcessingEnvironment processingEnv) {
+        ProcessingModelCache.of(processingEnv).constructorsOf(superclass).forEach(builder::addMethod);
+        return builder;
+    }
+
+    static MethodSpec constructorOf(ExecutableElement constructorElement) {
         MethodSpec.Builder methodBuilder = MethodSpec.constructorBuilder()
                 .addModifiers(Modifier.PUBLIC);
         constructorElement.getParameters().forEach(param -> methodBuilder.addParameter(ParameterSpec.get(param)));
         methodBuilder.addStatement("super(" + constructorElement.getParameters().stream()
                 .map(it -> it.getSimpleName().toString())
                 .collect(Collectors.joining(", ")) + ")");
-        builder.addMethod(methodBuilder.build());
-        return builder;
+        return methodBuilder.build();
+    }
+
+    /**
+     * Writes the proxy of {@code originatingClass} straight to the {@link javax.annotation.processing.Filer},
+     * without rendering the whole file to a string first.
+     */
+    public static void writeSourceFile(ProcessingEnvironment processingEnv, String packageName, TypeSpec.Builder builder, TypeElement originatingClass) throws IOException {
+        JavaFile.builder(packageName, builder.addOriginatingElement(originatingClass).build())
+                .indent("    ")
+                .build()
+                .writeTo(processingEnv.getFiler());
     }
 
     public static TypeSpec.Builder addProxyMethod(TypeSpec.Builder builder, ExecutableElement methodElement, CodeBlock blockBefore, CodeBlock blockAfter) {
+        return addProxyMethod(builder, methodElement, ProxyGuard.of(blockBefore, blockAfter));
+    }
+
+    public static TypeSpec.Builder addProxyMethod(TypeSpec.Builder builder, ExecutableElement methodElement, ProxyGuard guard) {
+        return addProxyMethod(builder, methodElement, List.of(guard));
+    }
+
+    /**
+     * Overrides a method with the guards nested in the given order: the first guard is acquired first and released last.
+     */
+    public static TypeSpec.Builder addProxyMethod(TypeSpec.Builder builder, ExecutableElement methodElement, List<ProxyGuard> guards) {
         MethodSpec.Builder methodBuilder = MethodSpec.overriding(methodElement)
                 .addModifiers(Modifier.PUBLIC);
-        methodBuilder.addStatement(blockBefore);
-        String superCall = "super." + methodElement.getSimpleName().toString() + "(" + methodElement.getParameters().stream()
-                .map(it -> it.getSimpleName().toString())
-                .collect(Collectors.joining(", ")) + ")";
+        for (int i = 0; i < guards.size(); i++) {
+            ProxyGuard guard = guards.get(i);
+            if (guard.getPrologue() != null) {
+                methodBuilder.addStatement(guard.getPrologue());
+            }
+            addAcquire(methodBuilder, guard.getAcquire(), guard.getMetrics(), suffixOf(i));
+            methodBuilder.beginControlFlow("try");
+        }
+        String superCall = "super." + methodElement.getSimpleName().toString() + "(" + argumentsOf(methodElement) + ")";
         if (!methodElement.getReturnType().getKind().equals(TypeKind.VOID)) {
-            superCall = "var returnValueGenerated = " + superCall;
+            superCall = "return " + superCall;
         }
         methodBuilder.addStatement(superCall);
-        methodBuilder.addStatement(blockAfter);
-        if (!methodElement.getReturnType().getKind().equals(TypeKind.VOID)) {
-            methodBuilder.addStatement("return returnValueGenerated");
+        for (int i = guards.size() - 1; i >= 0; i--) {
+            ProxyGuard guard = guards.get(i);
+            methodBuilder.nextControlFlow("finally");
+            methodBuilder.addStatement(guard.getRelease());
+            if (guard.getMetrics() != null) {
+                methodBuilder.addStatement("$L.released(holdStartGenerated" + suffixOf(i) + ")", guard.getMetrics());
+            }
+            methodBuilder.endControlFlow();
+        }
+        builder.addMethod(methodBuilder.build());
+        return builder;
+    }
+
+    private static String suffixOf(int guardIndex) {
+        return guardIndex == 0 ? "" : String.valueOf(guardIndex);
+    }
+
+    private static void addAcquire(MethodSpec.Builder methodBuilder, CodeBlock acquire, CodeBlock metrics, String suffix) {
+        if (metrics == null) {
+            methodBuilder.addStatement(acquire);
+            return;
+        }
+        methodBuilder.addStatement("long waitStartGenerated" + suffix + " = $T.nanoTime()", System.class);
+        methodBuilder.beginControlFlow("try");
+        methodBuilder.addStatement(acquire);
+        methodBuilder.nextControlFlow("catch ($T | $T eGenerated)", RuntimeException.class, Error.class);
+        methodBuilder.addStatement("$L.failed(waitStartGenerated" + suffix + ", eGenerated)", metrics);
+        methodBuilder.addStatement("throw eGenerated");
+        methodBuilder.endControlFlow();
+        methodBuilder.addStatement("long holdStartGenerated" + suffix + " = $L.acquired(waitStartGenerated" + suffix + ")", metrics);
+    }
+
+    public static boolean isInstrumentationEnabled(ProcessingEnvironment processingEnv) {
+        return Boolean.parseBoolean(processingEnv.getOptions().get(INSTRUMENTATION_OPTION));
+    }
+
+    public static boolean isTimedCrossSemaphoreEnabled(ProcessingEnvironment processingEnv) {
+        return Boolean.parseBoolean(processingEnv.getOptions().get(TIMED_CROSS_SEMAPHORE_OPTION));
+    }
+
+    /**
+     * Adds a static {@code GuardMetrics} field registered under {@code name} and returns a reference to it.
+     */
+    public static CodeBlock addGuardMetricsField(TypeSpec.Builder builder, String name) {
+        String fieldName = "GUARD_METRICS_" + builder.fieldSpecs.stream()
+                .filter(it -> it.name.startsWith("GUARD_METRICS_"))
+                .count();
+        builder.addField(FieldSpec.builder(GuardMetrics.class, fieldName, Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("$T.metrics($S)", GuardMetricsRegistry.class, name)
+                .build());
+        return CodeBlock.of("$L", fieldName);
+    }
+
+    /**
+     * Overrides a method with an optimistic read of the {@code StripedReadWriteLocker.Stripe} returned by
+     * {@code stripe}: the super call runs without locking and is repeated under the read lock if the stamp was
+     * invalidated by a writer.
+     */
+    public static TypeSpec.Builder addOptimisticReadProxyMethod(TypeSpec.Builder builder, ExecutableElement methodElement, CodeBlock stripe) {
+        return addOptimisticReadProxyMethod(builder, methodElement, stripe, null);
+    }
+
+    /**
+     * Same as {@link #addOptimisticReadProxyMethod(TypeSpec.Builder, ExecutableElement, CodeBlock)}; when
+     * {@code metrics} is set, only the fallback read lock is recorded since optimistic attempts never wait.
+     */
+    public static TypeSpec.Builder addOptimisticReadProxyMethod(TypeSpec.Builder builder, ExecutableElement methodElement, CodeBlock stripe, CodeBlock metrics) {
+        MethodSpec.Builder methodBuilder = MethodSpec.overriding(methodElement)
+                .addModifiers(Modifier.PUBLIC);
+        String superCall = "super." + methodElement.getSimpleName().toString() + "(" + argumentsOf(methodElement) + ")";
+        methodBuilder.addStatement("var lockStripeGenerated = $L", stripe);
+        methodBuilder.addStatement("long lockStampGenerated = lockStripeGenerated.tryOptimisticRead()");
+        methodBuilder.beginControlFlow("if (lockStampGenerated != 0L)");
+        methodBuilder.beginControlFlow("try");
+        methodBuilder.addStatement("var returnValueGenerated = " + superCall);
+        methodBuilder.beginControlFlow("if (lockStripeGenerated.validate(lockStampGenerated))");
+        methodBuilder.addStatement("return returnValueGenerated");
+        methodBuilder.endControlFlow();
+        methodBuilder.nextControlFlow("catch ($T eGenerated)", RuntimeException.class);
+        methodBuilder.beginControlFlow("if (lockStripeGenerated.validate(lockStampGenerated))");
+        methodBuilder.addStatement("throw eGenerated");
+        methodBuilder.endControlFlow();
+        methodBuilder.endControlFlow();
+        methodBuilder.endControlFlow();
+        addAcquire(methodBuilder, CodeBlock.of("lockStripeGenerated.lockRead()"), metrics, "");
+        methodBuilder.beginControlFlow("try");
+        methodBuilder.addStatement("return " + superCall);
+        methodBuilder.nextControlFlow("finally");
+        methodBuilder.addStatement("lockStripeGenerated.unlockRead()");
+        if (metrics != null) {
+            methodBuilder.addStatement("$L.released(holdStartGenerated)", metrics);
         }
+        methodBuilder.endControlFlow();
         builder.addMethod(methodBuilder.build());
         return builder;
     }
+
+    public static boolean isAsyncMethod(ExecutableElement method, ProcessingEnvironment processingEnv) {
+        Types types = processingEnv.getTypeUtils();
+        TypeMirror returnType = types.erasure(method.getReturnType());
+        return types.isSameType(returnType, erasure(CompletableFuture.class, processingEnv))
+                || types.isSameType(returnType, erasure(CompletionStage.class, processingEnv));
+    }
+
+    public static boolean validateAsyncMethod(ExecutableElement method, ProcessingEnvironment processingEnv) {
+        for (TypeMirror thrownType : method.getThrownTypes()) {
+            if (!isUnchecked(thrownType, processingEnv)) {
+                var message = "Async method for overriding must not declare checked exceptions " + ((TypeElement) method.getEnclosingElement()).getQualifiedName() + "." + method.getSimpleName();
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message);
+                throw new IllegalStateException(message);
+            }
+        }
+        return true;
+    }
+
+    public static TypeSpec.Builder addAsyncProxyMethod(TypeSpec.Builder builder, ExecutableElement methodElement, UnaryOperator<CodeBlock> guard) {
+        return addAsyncProxyMethod(builder, methodElement, List.of(guard));
+    }
+
+    /**
+     * Overrides an async method with {@code return <guardedCall>}, where each guard wraps the supplier of the next one
+     * and the last guard wraps {@code () -> super.method(...)}, so the first guard is acquired first and released last.
+     */
+    public static TypeSpec.Builder addAsyncProxyMethod(TypeSpec.Builder builder, ExecutableElement methodElement, List<UnaryOperator<CodeBlock>> guards) {
+        MethodSpec.Builder methodBuilder = MethodSpec.overriding(methodElement)
+                .addModifiers(Modifier.PUBLIC);
+        CodeBlock call = CodeBlock.of("super." + methodElement.getSimpleName().toString() + "(" + argumentsOf(methodElement) + ")");
+        for (int i = guards.size() - 1; i >= 0; i--) {
+            call = guards.get(i).apply(CodeBlock.of("() -> $L", call));
+        }
+        methodBuilder.addStatement("return $L", call);
+        builder.addMethod(methodBuilder.build());
+        return builder;
+    }
+
+    public static String methodNameOf(ExecutableElement method) {
+        return ((TypeElement) method.getEnclosingElement()).getQualifiedName() + "." + method.getSimpleName();
+    }
+
+    /**
+     * Returns the parameter names of {@code method} separated by commas, as passed on by a generated call.
+     */
+    public static String argumentsOf(ExecutableElement method) {
+        return method.getParameters().stream()
+                .map(it -> it.getSimpleName().toString())
+                .collect(Collectors.joining(", "));
+    }
+
+    public static boolean hasSameParameters(ExecutableElement first, ExecutableElement second, ProcessingEnvironment processingEnv) {
+        if (first.getParameters().size() != second.getParameters().size()) {
+            return false;
+        }
+        for (int i = 0; i < first.getParameters().size(); i++) {
+            if (!processingEnv.getTypeUtils().isSameType(first.getParameters().get(i).asType(), second.getParameters().get(i).asType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static boolean isUnchecked(TypeMirror type, ProcessingEnvironment processingEnv) {
+        Types types = processingEnv.getTypeUtils();
+        return types.isAssignable(type, erasure(RuntimeException.class, processingEnv))
+                || types.isAssignable(type, erasure(Error.class, processingEnv));
+    }
+
+    public static TypeMirror box(TypeMirror type, ProcessingEnvironment processingEnv) {
+        return type.getKind().isPrimitive() ? processingEnv.getTypeUtils().boxedClass((PrimitiveType) type).asType() : type;
+    }
+
+    private static TypeMirror erasure(Class<?> clazz, ProcessingEnvironment processingEnv) {
+        return processingEnv.getTypeUtils().erasure(processingEnv.getElementUtils().getTypeElement(clazz.getCanonicalName()).asType());
+    }
 }
@@ -0,0 +1,135 @@
+package ru.vsu.cs.benchmark;
+
+import javax.annotation.processing.Processor;
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles a {@link SyntheticProject} in-process, once without annotation processing and once with the processors
+ * of this library, and reports compile time, per-processor time, bytes allocated by the compiling thread and peak
+ * heap. Run with {@code ./gradlew processorBenchmark}, optionally with
+ * {@code -PprocessorBenchmarkArgs="<classes> <methodsPerClass> <iterations>"}.
+ */
+public final class ProcessorBenchmark {
+
+    private static final String PROCESSOR_PACKAGE = "ru.vsu.cs.processor.";
+
+    public static void main(String[] args) throws IOException {
+        int classes = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int methodsPerClass = args.length > 1 ? Integer.parseInt(args[1]) : 24;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        SyntheticProject project = new SyntheticProject(classes, methodsPerClass);
+        Path workDir = Files.createTempDirectory("processor-benchmark");
+        try {
+            List<Path> sources = project.write(workDir.resolve("src"));
+            System.out.printf("%d classes, %d annotated methods%n", classes, project.annotatedMethods());
+            System.out.printf("%-10s %-5s %10s %10s %14s %14s%n", "mode", "run", "total ms", "proc ms", "allocated MB", "peak heap MB");
+            for (int i = 1; i <= iterations; i++) {
+                print("no-proc", i, compile(sources, workDir.resolve("out-" + i + "-none"), false));
+                print("processors", i, compile(sources, workDir.resolve("out-" + i), true));
+            }
+        } finally {
+            delete(workDir);
+        }
+    }
+
+    private static Result compile(List<Path> sources, Path outDir, boolean process) throws IOException {
+        Path classesDir = Files.createDirectories(outDir.resolve("classes"));
+        Path generatedDir = Files.createDirectories(outDir.resolve("generated"));
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        List<String> options = new ArrayList<>(List.of(
+                "-d", classesDir.toString(),
+                "-s", generatedDir.toString(),
+                "-classpath", System.getProperty("java.class.path"),
+                "-nowarn"));
+        List<TimedProcessor> processors = new ArrayList<>();
+        if (process) {
+            ServiceLoader.load(Processor.class).stream()
+                    .filter(it -> it.type().getName().startsWith(PROCESSOR_PACKAGE))
+                    .forEach(it -> processors.add(new TimedProcessor(it.get())));
+            if (processors.isEmpty()) {
+                throw new IllegalStateException("No processors of " + PROCESSOR_PACKAGE + " found on the classpath");
+            }
+        } else {
+            options.add("-proc:none");
+        }
+        System.gc();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(it -> it.getType() == MemoryType.HEAP)
+                .collect(Collectors.toList());
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long start = System.nanoTime();
+        boolean success;
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, null, options, null,
+                    fileManager.getJavaFileObjectsFromPaths(sources));
+            if (process) {
+                task.setProcessors(processors);
+            }
+            success = task.call();
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - allocatedBefore;
+        long peakHeap = heapPools.stream().mapToLong(it -> it.getPeakUsage().getUsed()).sum();
+        if (!success) {
+            throw new IllegalStateException("Compilation of the synthetic project failed");
+        }
+        long generated;
+        try (Stream<Path> files = Files.walk(generatedDir)) {
+            generated = files.filter(Files::isRegularFile).count();
+        }
+        return new Result(nanos, allocated, peakHeap, generated, processors);
+    }
+
+    private static void print(String mode, int run, Result result) {
+        long processorNanos = result.processors.stream().mapToLong(TimedProcessor::nanos).sum();
+        System.out.printf("%-10s %-5d %10d %10d %14d %14d%n", mode, run, result.nanos / 1_000_000, processorNanos / 1_000_000,
+                result.allocatedBytes >> 20, result.peakHeapBytes >> 20);
+        if (!result.processors.isEmpty()) {
+            System.out.printf("           %d generated files; %s%n", result.generatedFiles, result.processors.stream()
+                    .map(it -> it.name() + " " + it.nanos() / 1_000_000 + " ms")
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static final class Result {
+
+        private final long nanos;
+        private final long allocatedBytes;
+        private final long peakHeapBytes;
+        private final long generatedFiles;
+        private final List<TimedProcessor> processors;
+
+        private Result(long nanos, long allocatedBytes, long peakHeapBytes, long generatedFiles, List<TimedProcessor> processors) {
+            this.nanos = nanos;
+            this.allocatedBytes = allocatedBytes;
+            this.peakHeapBytes = peakHeapBytes;
+            this.generatedFiles = generatedFiles;
+            this.processors = processors;
+        }
+    }
+}
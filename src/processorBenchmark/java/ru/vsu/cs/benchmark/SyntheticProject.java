@@ -0,0 +1,72 @@
+package ru.vsu.cs.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes {@code classes} annotated classes with {@code methodsPerClass} proxied methods each, rotating through
+ * {@code @StripedLock}, {@code @CrossSemaphore}, {@code @Memoized} and {@code @LocalLimiter}, plus one
+ * {@code @Scheduled} method per class. Simple class names repeat in every package of 100 classes.
+ */
+final class SyntheticProject {
+
+    private static final String[] ANNOTATIONS = {
+            "@StripedLock(lockIdentifier = \"key\")",
+            "@CrossSemaphore(semophoreId = \"%s\", permits = 4)",
+            "@Memoized",
+            "@LocalLimiter(permits = 8)"
+    };
+
+    private final int classes;
+    private final int methodsPerClass;
+
+    SyntheticProject(int classes, int methodsPerClass) {
+        this.classes = classes;
+        this.methodsPerClass = methodsPerClass;
+    }
+
+    int annotatedMethods() {
+        return classes * (methodsPerClass + 1);
+    }
+
+    List<Path> write(Path sourceDir) throws IOException {
+        List<Path> sources = new ArrayList<>(classes);
+        for (int i = 0; i < classes; i++) {
+            String packageName = "bench.p" + i / 100;
+            String className = "Service" + i % 100;
+            Path file = sourceDir.resolve(packageName.replace('.', '/')).resolve(className + ".java");
+            Files.createDirectories(file.getParent());
+            Files.writeString(file, source(packageName, className, i), StandardCharsets.UTF_8);
+            sources.add(file);
+        }
+        return sources;
+    }
+
+    private String source(String packageName, String className, int index) {
+        StringBuilder source = new StringBuilder()
+                .append("package ").append(packageName).append(";\n\n")
+                .append("import ru.cs.vsu.multithreading.annotation.CrossSemaphore;\n")
+                .append("import ru.cs.vsu.multithreading.annotation.Scheduled;\n")
+                .append("import ru.cs.vsu.multithreading.annotation.StripedLock;\n")
+                .append("import ru.vsu.cs.annotation.LocalLimiter;\n")
+                .append("import ru.vsu.cs.annotation.Memoized;\n\n")
+                .append("public class ").append(className).append(" {\n\n")
+                .append("    public ").append(className).append("() {\n    }\n\n")
+                .append("    public ").append(className).append("(String name) {\n    }\n\n")
+                .append("    @Scheduled(interval = 1000, id = \"").append(new UUID(0L, index)).append("\")\n")
+                .append("    public static void tick() {\n    }\n");
+        String semaphoreId = new UUID(1L, index).toString();
+        for (int j = 0; j < methodsPerClass; j++) {
+            source.append("\n    ").append(String.format(ANNOTATIONS[j % ANNOTATIONS.length], semaphoreId)).append("\n")
+                    .append("    public long method").append(j).append("(String key) {\n")
+                    .append("        return key.length() + ").append(j).append(";\n")
+                    .append("    }\n");
+        }
+        return source.append("}\n").toString();
+    }
+}
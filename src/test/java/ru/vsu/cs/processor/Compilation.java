@@ -0,0 +1,240 @@
+package ru.vsu.cs.processor;
+
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory compilation of test sources with the processors of this library. The generated sources are compiled
+ * together with the fixtures against the test classpath, so a test can load the proxies from {@link #classLoader()}
+ * and call them.
+ */
+final class Compilation {
+
+    private final Map<String, String> generated = new LinkedHashMap<>();
+    private final Map<String, byte[]> classes = new HashMap<>();
+    private final List<Diagnostic<? extends JavaFileObject>> diagnostics = new ArrayList<>();
+    private boolean success;
+    private ClassLoader classLoader;
+
+    private Compilation() {
+    }
+
+    /**
+     * @param sources source code by qualified class name
+     */
+    static Compilation compile(Map<String, String> sources, Processor... processors) {
+        return compile(sources, List.of(), processors);
+    }
+
+    /**
+     * Compiles fixtures kept as test resources, e.g. {@code fixture.Accounts} from {@code fixture/Accounts.java}.
+     */
+    static Compilation compileFixtures(List<String> classNames, List<String> options, Processor... processors) {
+        Map<String, String> sources = new LinkedHashMap<>();
+        for (String className : classNames) {
+            String path = className.replace('.', '/') + ".java";
+            try (InputStream source = Compilation.class.getClassLoader().getResourceAsStream(path)) {
+                if (source == null) {
+                    throw new AssertionError("No fixture " + path);
+                }
+                sources.put(className, new String(source.readAllBytes(), StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return compile(sources, options, processors);
+    }
+
+    /**
+     * @param sources source code by qualified class name
+     * @param options javac options, e.g. {@code -Aru.vsu.cs.instrumentation=true}
+     */
+    static Compilation compile(Map<String, String> sources, List<String> options, Processor... processors) {
+        Compilation compilation = new Compilation();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> collector = new DiagnosticCollector<>();
+        StandardJavaFileManager standardManager = compiler.getStandardFileManager(collector, null, null);
+        JavaFileManager fileManager = new ForwardingJavaFileManager<>(standardManager) {
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+                return new Output(className.replace('.', '/') + kind.extension, kind, compilation);
+            }
+
+            @Override
+            public FileObject getFileForOutput(Location location, String packageName, String relativeName, FileObject sibling) {
+                String path = packageName.isEmpty() ? relativeName : packageName.replace('.', '/') + "/" + relativeName;
+                return new Output(path, JavaFileObject.Kind.OTHER, compilation);
+            }
+        };
+        List<JavaFileObject> units = sources.entrySet().stream()
+                .map(it -> new Source(it.getKey(), it.getValue()))
+                .collect(Collectors.toList());
+        List<String> arguments = new ArrayList<>(List.of("-classpath", System.getProperty("java.class.path")));
+        arguments.addAll(options);
+        JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, collector, arguments, null, units);
+        task.setProcessors(List.of(processors));
+        try {
+            compilation.success = task.call();
+        } catch (RuntimeException e) {
+            // the processors report the error and rethrow it, javac wraps it into a RuntimeException
+            compilation.success = false;
+        }
+        compilation.diagnostics.addAll(collector.getDiagnostics());
+        return compilation;
+    }
+
+    boolean succeeded() {
+        return success;
+    }
+
+    /**
+     * Generated source or resource by its path, e.g. {@code fixture/AccountsStripedLockProxy.java}.
+     */
+    String generated(String path) {
+        String content = generated.get(path);
+        if (content == null) {
+            throw new AssertionError("No " + path + " among generated files " + generated.keySet() + ", diagnostics: " + diagnostics);
+        }
+        return content;
+    }
+
+    Map<String, String> generatedFiles() {
+        return generated;
+    }
+
+    List<String> errors() {
+        return diagnostics.stream()
+                .filter(it -> it.getKind() == Diagnostic.Kind.ERROR)
+                .map(it -> it.getMessage(null))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Errors and warnings of the processors and of javac, including the ones reported on the generated sources.
+     */
+    List<String> diagnostics() {
+        return diagnostics.stream()
+                .filter(it -> it.getKind() != Diagnostic.Kind.NOTE && it.getKind() != Diagnostic.Kind.OTHER)
+                .map(it -> it.getKind() + " " + it.getSource() + ":" + it.getLineNumber() + " " + it.getMessage(null))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Loads the compiled fixtures and proxies, delegating the library classes to the test classpath. The same loader
+     * is returned for every call, so the classes of one compilation can be passed to each other.
+     */
+    ClassLoader classLoader() {
+        if (classLoader == null) {
+            classLoader = new ClassLoader(Compilation.class.getClassLoader()) {
+                @Override
+                protected Class<?> findClass(String name) throws ClassNotFoundException {
+                    byte[] bytes = classes.get(name.replace('.', '/') + JavaFileObject.Kind.CLASS.extension);
+                    if (bytes == null) {
+                        throw new ClassNotFoundException(name);
+                    }
+                    return defineClass(name, bytes, 0, bytes.length);
+                }
+            };
+        }
+        return classLoader;
+    }
+
+    /**
+     * Creates an instance of a compiled class with its no-arg constructor.
+     */
+    Object newInstance(String className) {
+        try {
+            return classLoader().loadClass(className).getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new AssertionError("Cannot create " + className, e);
+        }
+    }
+
+    /**
+     * Calls the public method {@code name} of {@code target} with as many parameters as {@code args}, rethrowing
+     * what the method throws.
+     */
+    static Object call(Object target, String name, Object... args) throws Throwable {
+        Method method = Arrays.stream(target.getClass().getMethods())
+                .filter(it -> it.getName().equals(name) && it.getParameterCount() == args.length)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("No method " + name + " in " + target.getClass()));
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class Source extends SimpleJavaFileObject {
+
+        private final String content;
+
+        private Source(String className, String content) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.content = content;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content;
+        }
+    }
+
+    private static final class Output extends SimpleJavaFileObject {
+
+        private final String path;
+        private final Compilation compilation;
+
+        private Output(String path, Kind kind, Compilation compilation) {
+            super(URI.create("mem:///" + path), kind);
+            this.path = path;
+            this.compilation = compilation;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return compilation.generated.get(path);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return new ByteArrayOutputStream() {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    if (getKind() == Kind.CLASS) {
+                        compilation.classes.put(path, toByteArray());
+                    } else {
+                        compilation.generated.put(path, toString(StandardCharsets.UTF_8));
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package ru.vsu.cs.processor;
+
+import org.junit.jupiter.api.Test;
+import ru.vsu.cs.runtime.CrossSemaphoreBackend;
+import ru.vsu.cs.runtime.CrossSemaphoreBackends;
+import ru.vsu.cs.runtime.InMemoryCrossSemaphoreBackend;
+import ru.vsu.cs.runtime.limit.LimitExceededException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GuardedProxyProcessingTest {
+
+    private static final String PROXY = "fixture.PricesGuardedProxy";
+
+    @Test
+    void singleAnnotationKeepsItsProxyName() {
+        Compilation compilation = Compilation.compile(Map.of("fixture.Prices", "package fixture;\n"
+                + "\n"
+                + "import ru.vsu.cs.annotation.Memoized;\n"
+                + "\n"
+                + "public class Prices {\n"
+                + "\n"
+                + "    @Memoized(maxSize = 16)\n"
+                + "    public String price(String sku) {\n"
+                + "        return sku;\n"
+                + "    }\n"
+                + "}\n"), new GuardedProxyAnnotationProcessor());
+
+        assertTrue(compilation.succeeded(), compilation.errors()::toString);
+        String proxy = compilation.generated("fixture/PricesMemoizedProxy.java");
+        assertTrue(proxy.contains("memoizingCaches()"), proxy);
+        assertFalse(compilation.generatedFiles().containsKey("fixture/PricesGuardedProxy.java"));
+    }
+
+    @Test
+    void annotationsReplacingTheBodyShareGuardedProxyWithoutDiagnostics() {
+        Compilation compilation = compilePrices();
+
+        assertEquals(List.of(), compilation.diagnostics());
+        assertTrue(compilation.generatedFiles().containsKey("fixture/PricesGuardedProxy.java"));
+        assertFalse(compilation.generatedFiles().containsKey("fixture/PricesMemoizedProxy.java"));
+    }
+
+    @Test
+    void stripedLockClassKeepsItsProxyNameWithOtherAnnotations() {
+        Compilation compilation = Compilation.compile(Map.of("fixture.Prices", "package fixture;\n"
+                + "\n"
+                + "import ru.cs.vsu.multithreading.annotation.StripedLock;\n"
+                + "import ru.vsu.cs.annotation.Memoized;\n"
+                + "\n"
+                + "public class Prices {\n"
+                + "\n"
+                + "    @StripedLock(lockIdentifier = \"sku\")\n"
+                + "    public void update(String sku) {\n"
+                + "    }\n"
+                + "\n"
+                + "    @Memoized(maxSize = 16)\n"
+                + "    public String price(String sku) {\n"
+                + "        return sku;\n"
+                + "    }\n"
+                + "}\n"), new GuardedProxyAnnotationProcessor());
+
+        assertEquals(List.of(), compilation.diagnostics());
+        assertTrue(compilation.generatedFiles().containsKey("fixture/PricesStripedLockProxy.java"));
+        assertFalse(compilation.generatedFiles().containsKey("fixture/PricesGuardedProxy.java"));
+    }
+
+    @Test
+    void memoizedMethodIsCalledOncePerKey() throws Throwable {
+        Object prices = compilePrices().newInstance(PROXY);
+
+        assertEquals("price of first", Compilation.call(prices, "price", "first"));
+        assertEquals("price of first", Compilation.call(prices, "price", "first"));
+        assertEquals("price of second", Compilation.call(prices, "price", "second"));
+
+        assertEquals(2, Compilation.call(prices, "priceCalls"));
+    }
+
+    @Test
+    void bulkheadRejectsCallAboveItsPermits() throws Throwable {
+        Object prices = compilePrices().newInstance(PROXY);
+        CompletableFuture<Void> export = CompletableFuture.runAsync(() -> {
+            try {
+                Compilation.call(prices, "export");
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals(true, Compilation.call(prices, "awaitExporting"));
+
+        assertThrows(LimitExceededException.class, () -> Compilation.call(prices, "export"));
+
+        Compilation.call(prices, "finishExport");
+        export.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void batchedMethodIsServedByBulkMethod() throws Throwable {
+        Object prices = compilePrices().newInstance(PROXY);
+
+        assertEquals(3, Compilation.call(prices, "stock", "abc"));
+
+        assertEquals(1, Compilation.call(prices, "bulkCalls"));
+    }
+
+    @Test
+    void stripedLockAndCrossSemaphoreOfOneMethodAreReleasedAfterTheCall() throws Throwable {
+        Compilation compilation = Compilation.compile(Map.of("fixture.Exports", "package fixture;\n"
+                + "\n"
+                + "import ru.cs.vsu.multithreading.annotation.CrossSemaphore;\n"
+                + "import ru.cs.vsu.multithreading.annotation.StripedLock;\n"
+                + "\n"
+                + "public class Exports {\n"
+                + "\n"
+                + "    @StripedLock(lockIdentifier = \"id\")\n"
+                + "    @CrossSemaphore(semophoreId = \"6f1f5c1e-3a4b-4d8e-9c1a-2b7e5d4f0a11\", permits = 1)\n"
+                + "    public String export(String id) {\n"
+                + "        return \"exported \" + id;\n"
+                + "    }\n"
+                + "}\n"), new GuardedProxyAnnotationProcessor());
+        assertEquals(List.of(), compilation.diagnostics());
+        CrossSemaphoreBackend backend = CrossSemaphoreBackends.get();
+        CrossSemaphoreBackends.set(new InMemoryCrossSemaphoreBackend());
+        try {
+            Object exports = compilation.newInstance("fixture.ExportsGuardedProxy");
+
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                assertEquals("exported first", Compilation.call(exports, "export", "first"));
+                assertEquals("exported first", Compilation.call(exports, "export", "first"));
+            });
+        } finally {
+            CrossSemaphoreBackends.set(backend);
+        }
+    }
+
+    @Test
+    void memoizedWithStripedLockOnOneMethodIsRejected() {
+        Compilation compilation = Compilation.compile(Map.of("fixture.Prices", "package fixture;\n"
+                + "\n"
+                + "import ru.cs.vsu.multithreading.annotation.StripedLock;\n"
+                + "import ru.vsu.cs.annotation.Memoized;\n"
+                + "\n"
+                + "public class Prices {\n"
+                + "\n"
+                + "    @StripedLock(lockIdentifier = \"sku\")\n"
+                + "    @Memoized(maxSize = 16)\n"
+                + "    public String price(String sku) {\n"
+                + "        return sku;\n"
+                + "    }\n"
+                + "}\n"), new GuardedProxyAnnotationProcessor());
+
+        assertFalse(compilation.succeeded());
+        assertTrue(compilation.errors().stream().anyMatch(it -> it.contains("@StripedLock and @Memoized must not be combined")),
+                compilation.errors()::toString);
+    }
+
+    @Test
+    void localLimiterWithBatchedOnOneMethodIsRejected() {
+        Compilation compilation = Compilation.compile(Map.of("fixture.Prices", "package fixture;\n"
+                + "\n"
+                + "import java.util.List;\n"
+                + "import java.util.Map;\n"
+                + "import ru.vsu.cs.annotation.Batched;\n"
+                + "import ru.vsu.cs.annotation.LocalLimiter;\n"
+                + "import ru.vsu.cs.annotation.LocalLimiterKind;\n"
+                + "\n"
+                + "public class Prices {\n"
+                + "\n"
+                + "    @LocalLimiter(kind = LocalLimiterKind.BULKHEAD, permits = 4)\n"
+                + "    @Batched(bulkMethod = \"stocks\")\n"
+                + "    public Integer stock(String sku) {\n"
+                + "        return 0;\n"
+                + "    }\n"
+                + "\n"
+                + "    public Map<String, Integer> stocks(List<String> skus) {\n"
+                + "        return Map.of();\n"
+                + "    }\n"
+                + "}\n"), new GuardedProxyAnnotationProcessor());
+
+        assertFalse(compilation.succeeded());
+        assertTrue(compilation.errors().stream().anyMatch(it -> it.contains("@LocalLimiter and @Batched must not be combined")),
+                compilation.errors()::toString);
+    }
+
+    @Test
+    void weightedCrossSemaphoreNeedsTimedAcquireOption() {
+        Compilation compilation = Compilation.compile(Map.of("fixture.Exports", "package fixture;\n"
+                + "\n"
+                + "import ru.cs.vsu.multithreading.annotation.CrossSemaphore;\n"
+                + "import ru.vsu.cs.annotation.CrossSemaphoreOptions;\n"
+                + "\n"
+                + "public class Exports {\n"
+                + "\n"
+                + "    @CrossSemaphore(semophoreId = \"6f1f5c1e-3a4b-4d8e-9c1a-2b7e5d4f0a11\", permits = 4)\n"
+                + "    @CrossSemaphoreOptions(weight = 2)\n"
+                + "    public void export() {\n"
+                + "    }\n"
+                + "}\n"), new GuardedProxyAnnotationProcessor());
+
+        assertFalse(compilation.succeeded());
+        assertTrue(compilation.errors().stream().anyMatch(it -> it.contains("-Aru.vsu.cs.crossSemaphore.timedAcquire=true")),
+                compilation.errors()::toString);
+    }
+
+    /**
+     * Compiles {@code fixture/Prices.java} of the test resources with its proxy.
+     */
+    private static Compilation compilePrices() {
+        Compilation compilation = Compilation.compileFixtures(List.of("fixture.Prices"), List.of(), new GuardedProxyAnnotationProcessor());
+        assertTrue(compilation.succeeded(), compilation.diagnostics()::toString);
+        return compilation;
+    }
+}
@@ -0,0 +1,174 @@
+package ru.vsu.cs.processor;
+
+import org.gradle.testkit.runner.BuildResult;
+import org.gradle.testkit.runner.GradleRunner;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Builds a fixture project with the processors and checks that Gradle recompiles it incrementally: a change of one
+ * class regenerates only the proxy of that class, while the aggregating {@code @Scheduled} registry keeps listing
+ * the tasks of all classes.
+ */
+class IncrementalProcessingTest {
+
+    private static final String GENERATED = "build/generated/sources/annotationProcessor/java/main/fixture/";
+    private static final String REGISTRY = "build/classes/java/main/META-INF/services/ru.cs.vsu.multithreading.core.schedule.Schedulable";
+    private static final String FULL_RECOMPILATION = "Full recompilation is required";
+
+    @TempDir
+    Path projectDir;
+
+    @BeforeEach
+    void createProject() throws IOException {
+        String classpath = Arrays.stream(System.getProperty("processorClasspath").split(File.pathSeparator))
+                .map(it -> "'" + it.replace('\\', '/') + "'")
+                .collect(Collectors.joining(", "));
+        write("settings.gradle", "rootProject.name = 'incremental-fixture'\n");
+        write("build.gradle", "plugins {\n"
+                + "    id 'java'\n"
+                + "}\n"
+                + "\n"
+                + "dependencies {\n"
+                + "    implementation files(" + classpath + ")\n"
+                + "    annotationProcessor files(" + classpath + ")\n"
+                + "}\n");
+        write(sourceOf("Accounts"), stripedLockClass("Accounts", "0L"));
+        write(sourceOf("Orders"), stripedLockClass("Orders", "0L"));
+        write(sourceOf("Reports"), scheduledClass("Reports", "5f0d6a52-0c3e-4a33-9d7e-5a4f7a0c2b11", ""));
+        write(sourceOf("Cleanup"), scheduledClass("Cleanup", "0a4c1b9e-7d5f-4f0e-8e61-2b6c9d3e4f70", ""));
+    }
+
+    @Test
+    void changeOfOneClassRegeneratesOnlyItsProxy() throws IOException {
+        build();
+        Map<String, FileTime> before = generatedFiles();
+
+        write(sourceOf("Accounts"), stripedLockClass("Accounts", "1L"));
+        BuildResult result = build();
+
+        Map<String, FileTime> after = generatedFiles();
+        assertFalse(result.getOutput().contains(FULL_RECOMPILATION), result.getOutput());
+        assertEquals(before.keySet(), after.keySet());
+        assertNotEquals(before.get("AccountsStripedLockProxy.java"), after.get("AccountsStripedLockProxy.java"));
+        assertEquals(before.get("OrdersStripedLockProxy.java"), after.get("OrdersStripedLockProxy.java"));
+    }
+
+    @Test
+    void changeOfScheduledClassKeepsTheRegistryComplete() throws IOException {
+        build();
+        Map<String, FileTime> before = generatedFiles();
+        assertEquals(List.of("fixture.CleanupRunScheduledInit", "fixture.ReportsRunScheduledInit"), registry());
+
+        write(sourceOf("Reports"), scheduledClass("Reports", "5f0d6a52-0c3e-4a33-9d7e-5a4f7a0c2b11", "System.gc();"));
+        BuildResult result = build();
+
+        Map<String, FileTime> after = generatedFiles();
+        assertFalse(result.getOutput().contains(FULL_RECOMPILATION), result.getOutput());
+        assertEquals(List.of("fixture.CleanupRunScheduledInit", "fixture.ReportsRunScheduledInit"), registry());
+        assertEquals(before.get("AccountsStripedLockProxy.java"), after.get("AccountsStripedLockProxy.java"));
+        assertEquals(before.get("OrdersStripedLockProxy.java"), after.get("OrdersStripedLockProxy.java"));
+    }
+
+    @Test
+    void removalOfScheduledClassRemovesItFromTheRegistry() throws IOException {
+        build();
+
+        Files.delete(projectDir.resolve(sourceOf("Cleanup")));
+        BuildResult result = build();
+
+        assertFalse(result.getOutput().contains(FULL_RECOMPILATION), result.getOutput());
+        assertEquals(List.of("fixture.ReportsRunScheduledInit"), registry());
+        assertFalse(generatedFiles().containsKey("CleanupRunScheduledInit.java"));
+        assertTrue(generatedFiles().containsKey("AccountsStripedLockProxy.java"));
+    }
+
+    private BuildResult build() {
+        return GradleRunner.create()
+                .withProjectDir(projectDir.toFile())
+                .withArguments("compileJava", "--info")
+                .build();
+    }
+
+    /**
+     * Modification times of the generated sources. The build is slower than the file system clock resolution, but
+     * the wait keeps a regenerated file from getting the time of its previous version on coarse file systems.
+     */
+    private Map<String, FileTime> generatedFiles() throws IOException {
+        try {
+            Thread.sleep(1100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Map<String, FileTime> files = new HashMap<>();
+        try (Stream<Path> paths = Files.list(projectDir.resolve(GENERATED))) {
+            for (Path path : paths.collect(Collectors.toList())) {
+                files.put(path.getFileName().toString(), Files.getLastModifiedTime(path));
+            }
+        }
+        return files;
+    }
+
+    private List<String> registry() throws IOException {
+        return Files.readAllLines(projectDir.resolve(REGISTRY)).stream()
+                .filter(it -> !it.isBlank())
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private void write(String path, String content) throws IOException {
+        Path file = projectDir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+    }
+
+    private static String sourceOf(String className) {
+        return "src/main/java/fixture/" + className + ".java";
+    }
+
+    private static String stripedLockClass(String className, String balance) {
+        return "package fixture;\n"
+                + "\n"
+                + "import ru.cs.vsu.multithreading.annotation.StripedLock;\n"
+                + "\n"
+                + "public class " + className + " {\n"
+                + "\n"
+                + "    @StripedLock(lockIdentifier = \"id\")\n"
+                + "    public long balance(String id) {\n"
+                + "        return " + balance + ";\n"
+                + "    }\n"
+                + "}\n";
+    }
+
+    private static String scheduledClass(String className, String id, String body) {
+        return "package fixture;\n"
+                + "\n"
+                + "import ru.cs.vsu.multithreading.annotation.Scheduled;\n"
+                + "\n"
+                + "public class " + className + " {\n"
+                + "\n"
+                + "    @Scheduled(interval = 1000, id = \"" + id + "\")\n"
+                + "    public static void run() {\n"
+                + "        " + body + "\n"
+                + "    }\n"
+                + "}\n";
+    }
+}
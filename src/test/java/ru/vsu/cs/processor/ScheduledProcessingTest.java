@@ -0,0 +1,66 @@
+package ru.vsu.cs.processor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScheduledProcessingTest {
+
+    private static final String REGISTRY = "META-INF/services/ru.cs.vsu.multithreading.core.schedule.Schedulable";
+    private static final String WHEEL_REGISTRY = "META-INF/services/ru.vsu.cs.runtime.schedule.WheelSchedulable";
+
+    @Test
+    void registryListsTasksOfAllClasses() {
+        Compilation compilation = Compilation.compile(Map.of(
+                "fixture.Reports", scheduledClass("Reports", "5f0d6a52-0c3e-4a33-9d7e-5a4f7a0c2b11", ""),
+                "fixture.Cleanup", scheduledClass("Cleanup", "0a4c1b9e-7d5f-4f0e-8e61-2b6c9d3e4f70", "")),
+                new ScheduledAnnotationProcessor());
+
+        assertEquals(List.of(), compilation.diagnostics());
+        assertEquals("fixture.CleanupRunScheduledInit\nfixture.ReportsRunScheduledInit\n", compilation.generated(REGISTRY));
+        assertFalse(compilation.generatedFiles().containsKey(WHEEL_REGISTRY));
+    }
+
+    @Test
+    void timingWheelTasksAreListedInWheelRegistry() {
+        Compilation compilation = Compilation.compile(Map.of(
+                "fixture.Reports", scheduledClass("Reports", "5f0d6a52-0c3e-4a33-9d7e-5a4f7a0c2b11", ""),
+                "fixture.Cleanup", scheduledClass("Cleanup", "0a4c1b9e-7d5f-4f0e-8e61-2b6c9d3e4f70",
+                        "    @ru.vsu.cs.annotation.ScheduledOptions(timingWheel = true)\n")),
+                new ScheduledAnnotationProcessor());
+
+        assertEquals(List.of(), compilation.diagnostics());
+        assertEquals("fixture.ReportsRunScheduledInit\n", compilation.generated(REGISTRY));
+        assertEquals("fixture.CleanupRunScheduledInit\n", compilation.generated(WHEEL_REGISTRY));
+    }
+
+    @Test
+    void taskIdOfTwoMethodsIsRejected() {
+        Compilation compilation = Compilation.compile(Map.of(
+                "fixture.Reports", scheduledClass("Reports", "5f0d6a52-0c3e-4a33-9d7e-5a4f7a0c2b11", ""),
+                "fixture.Cleanup", scheduledClass("Cleanup", "5f0d6a52-0c3e-4a33-9d7e-5a4f7a0c2b11", "")),
+                new ScheduledAnnotationProcessor());
+
+        assertFalse(compilation.succeeded());
+        assertTrue(compilation.errors().stream().anyMatch(it -> it.contains("is already used by")), compilation.errors()::toString);
+    }
+
+    private static String scheduledClass(String name, String id, String options) {
+        return "package fixture;\n"
+                + "\n"
+                + "import ru.cs.vsu.multithreading.annotation.Scheduled;\n"
+                + "\n"
+                + "public class " + name + " {\n"
+                + "\n"
+                + "    @Scheduled(id = \"" + id + "\", interval = 1000)\n"
+                + options
+                + "    public static void run() {\n"
+                + "    }\n"
+                + "}\n";
+    }
+}
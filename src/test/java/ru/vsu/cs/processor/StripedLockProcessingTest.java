@@ -0,0 +1,153 @@
+package ru.vsu.cs.processor;
+
+import org.junit.jupiter.api.Test;
+import ru.vsu.cs.util.Utils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compiles {@code fixture/Accounts.java} of the test resources with its proxy and calls the proxy.
+ */
+class StripedLockProcessingTest {
+
+    private static final String PROXY = "fixture.AccountsStripedLockProxy";
+
+    @Test
+    void proxyCompilesWithoutDiagnostics() {
+        Compilation compilation = compileAccounts(List.of());
+
+        assertEquals(List.of(), compilation.diagnostics());
+    }
+
+    @Test
+    void instrumentedProxyCompilesWithoutDiagnostics() {
+        Compilation compilation = compileAccounts(List.of("-A" + Utils.INSTRUMENTATION_OPTION + "=true"));
+
+        assertEquals(List.of(), compilation.diagnostics());
+    }
+
+    @Test
+    void callsWithTheSameKeyDoNotOverlap() throws Throwable {
+        Compilation compilation = compileAccounts(List.of());
+        Object accounts = compilation.newInstance(PROXY);
+
+        runConcurrently(i -> () -> Compilation.call(accounts, "withdraw", "first", (long) i));
+
+        assertEquals(1, Compilation.call(accounts, "maxInside"));
+    }
+
+    @Test
+    void callsWithOverlappingKeySetsDoNotOverlap() throws Throwable {
+        Compilation compilation = compileAccounts(List.of());
+        Object accounts = compilation.newInstance(PROXY);
+        Object transfer = compilation.classLoader().loadClass("fixture.Accounts$Transfer")
+                .getConstructor(String[].class)
+                .newInstance((Object) new String[] {"second", "third"});
+
+        runConcurrently(i -> i % 2 == 0
+                ? () -> Compilation.call(accounts, "transfer", Set.of("first", "second"))
+                : () -> Compilation.call(accounts, "transferAll", transfer));
+
+        assertEquals(1, Compilation.call(accounts, "maxInside"));
+    }
+
+    @Test
+    void pooledExclusiveMethodsAreReentrant() throws Throwable {
+        Compilation compilation = compileAccounts(List.of());
+        Object accounts = compilation.newInstance(PROXY);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> Compilation.call(accounts, "deposit", "first", 5L));
+
+        assertEquals(5L, Compilation.call(accounts, "balance", "first", 0L));
+    }
+
+    @Test
+    void collectionLockIdentifierOfAsyncMethodIsRejected() {
+        Compilation compilation = Compilation.compile(Map.of("fixture.Accounts", "package fixture;\n"
+                + "\n"
+                + "import java.util.List;\n"
+                + "import java.util.concurrent.CompletableFuture;\n"
+                + "import ru.cs.vsu.multithreading.annotation.StripedLock;\n"
+                + "\n"
+                + "public class Accounts {\n"
+                + "\n"
+                + "    @StripedLock(lockIdentifier = \"ids\")\n"
+                + "    public CompletableFuture<Void> transfer(List<String> ids) {\n"
+                + "        return CompletableFuture.completedFuture(null);\n"
+                + "    }\n"
+                + "}\n"), new GuardedProxyAnnotationProcessor());
+
+        assertFalse(compilation.succeeded());
+        assertTrue(compilation.errors().stream().anyMatch(it -> it.contains("collection key")), compilation.errors()::toString);
+    }
+
+    @Test
+    void keyOfAsyncAndBlockingMethodsIsRejected() {
+        Compilation compilation = Compilation.compile(Map.of("fixture.Accounts", "package fixture;\n"
+                + "\n"
+                + "import java.util.concurrent.CompletableFuture;\n"
+                + "import ru.cs.vsu.multithreading.annotation.StripedLock;\n"
+                + "\n"
+                + "public class Accounts {\n"
+                + "\n"
+                + "    @StripedLock(lockIdentifier = \"id\")\n"
+                + "    public CompletableFuture<Void> deposit(String id) {\n"
+                + "        return CompletableFuture.completedFuture(null);\n"
+                + "    }\n"
+                + "\n"
+                + "    @StripedLock(lockIdentifier = \"id\")\n"
+                + "    public void withdraw(String id) {\n"
+                + "    }\n"
+                + "}\n"), new GuardedProxyAnnotationProcessor());
+
+        assertFalse(compilation.succeeded());
+        assertTrue(compilation.errors().stream().anyMatch(it -> it.contains("both async and blocking methods")), compilation.errors()::toString);
+    }
+
+    private static Compilation compileAccounts(List<String> options) {
+        Compilation compilation = Compilation.compileFixtures(List.of("fixture.Accounts"), options, new GuardedProxyAnnotationProcessor());
+        assertTrue(compilation.succeeded(), compilation.diagnostics()::toString);
+        return compilation;
+    }
+
+    /**
+     * Runs 40 calls created by {@code calls} on 4 threads and rethrows the first failure.
+     */
+    private static void runConcurrently(IntFunction<Call> calls) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<CompletableFuture<Void>> results = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                Call call = calls.apply(i);
+                results.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        call.call();
+                    } catch (Throwable e) {
+                        throw new IllegalStateException(e);
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private interface Call {
+        Object call() throws Throwable;
+    }
+}
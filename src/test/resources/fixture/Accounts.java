@@ -0,0 +1,80 @@
+package fixture;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import ru.cs.vsu.multithreading.annotation.StripedLock;
+import ru.vsu.cs.annotation.StripedLockMode;
+import ru.vsu.cs.annotation.StripedLockOptions;
+
+/**
+ * Counts the calls inside the exclusive methods at the same time. Parameters named {@code e} must not clash with
+ * the locals of the proxy.
+ */
+public class Accounts {
+
+    private final AtomicInteger inside = new AtomicInteger();
+    private final AtomicInteger maxInside = new AtomicInteger();
+    private volatile long balance;
+
+    @StripedLock(lockIdentifier = "id")
+    public void withdraw(String id, long e) {
+        enter();
+    }
+
+    @StripedLock(lockIdentifier = "ids")
+    public void transfer(Set<String> ids) {
+        enter();
+    }
+
+    @StripedLock(lockIdentifier = "transfer.getIds()")
+    public void transferAll(Transfer transfer) {
+        enter();
+    }
+
+    @StripedLock(lockIdentifier = "accountId")
+    @StripedLockOptions(pool = "accounts", stripes = 1)
+    public void deposit(String accountId, long e) {
+        refund(accountId, e);
+    }
+
+    @StripedLock(lockIdentifier = "accountId")
+    @StripedLockOptions(pool = "accounts", stripes = 1)
+    public void refund(String accountId, long e) {
+        balance += e;
+    }
+
+    @StripedLock(lockIdentifier = "key")
+    @StripedLockOptions(mode = StripedLockMode.OPTIMISTIC_READ)
+    public long balance(String key, long e) {
+        return balance + e;
+    }
+
+    public int maxInside() {
+        return maxInside.get();
+    }
+
+    private void enter() {
+        maxInside.accumulateAndGet(inside.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(2);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        inside.decrementAndGet();
+    }
+
+    public static class Transfer {
+
+        private final Set<String> ids;
+
+        public Transfer(String... ids) {
+            this.ids = new TreeSet<>(Arrays.asList(ids));
+        }
+
+        public Set<String> getIds() {
+            return ids;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package fixture;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import ru.vsu.cs.annotation.Batched;
+import ru.vsu.cs.annotation.LocalLimiter;
+import ru.vsu.cs.annotation.LocalLimiterKind;
+import ru.vsu.cs.annotation.Memoized;
+
+/**
+ * Uses every annotation that generates the whole method body, so they share {@code PricesGuardedProxy}.
+ */
+public class Prices {
+
+    private final AtomicInteger priceCalls = new AtomicInteger();
+    private final AtomicInteger bulkCalls = new AtomicInteger();
+    private final CountDownLatch exporting = new CountDownLatch(1);
+    private final CountDownLatch exported = new CountDownLatch(1);
+
+    @Memoized(maxSize = 16)
+    public String price(String e) {
+        priceCalls.incrementAndGet();
+        return "price of " + e;
+    }
+
+    @LocalLimiter(kind = LocalLimiterKind.BULKHEAD, permits = 1)
+    public void export() throws InterruptedException {
+        exporting.countDown();
+        exported.await();
+    }
+
+    @Batched(bulkMethod = "stocks")
+    public Integer stock(String sku) {
+        return stocks(List.of(sku)).get(sku);
+    }
+
+    public Map<String, Integer> stocks(List<String> skus) {
+        bulkCalls.incrementAndGet();
+        return skus.stream().distinct().collect(Collectors.toMap(Function.identity(), String::length));
+    }
+
+    public int priceCalls() {
+        return priceCalls.get();
+    }
+
+    public int bulkCalls() {
+        return bulkCalls.get();
+    }
+
+    public boolean awaitExporting() throws InterruptedException {
+        return exporting.await(5, TimeUnit.SECONDS);
+    }
+
+    public void finishExport() {
+        exported.countDown();
+    }
+}